@@ -3,6 +3,7 @@ package com.drdedd.chess.api;
 import com.drdedd.chess.api.data.AnalysisData;
 import com.drdedd.chess.api.data.LegalMovesData;
 import com.drdedd.chess.api.data.OpeningData;
+import com.drdedd.chess.api.data.PerftData;
 import com.drdedd.chess.api.data.RandomMoveData;
 import com.drdedd.chess.api.error.exceptions.BadRequestException;
 import com.drdedd.chess.api.error.exceptions.InternalServerErrorException;
@@ -12,7 +13,9 @@ import com.drdedd.chess.game.BoardModel;
 import com.drdedd.chess.game.GameLogic;
 import com.drdedd.chess.game.Openings;
 import com.drdedd.chess.game.ParsedGame;
-import com.drdedd.chess.game.data.Regexes;
+import com.drdedd.chess.game.board.FENScanner;
+import com.drdedd.chess.game.board.InvalidFENException;
+import com.drdedd.chess.game.board.Perft;
 import com.drdedd.chess.game.pgn.PGNParser;
 import com.drdedd.chess.misc.Log;
 import com.drdedd.chess.misc.MiscMethods;
@@ -29,6 +32,7 @@ import java.util.*;
 @RequestMapping("/api")
 public class APIController {
     private final static String TAG = "APIController";
+    private final static int MAX_PERFT_DEPTH = 6;
 
     @Value("${spring.application.name}")
     private String appName;
@@ -100,7 +104,11 @@ public class APIController {
         if (FEN == null) return "Missing FEN parameter";
         FEN = FEN.trim();
         if (FEN.isEmpty()) return "Empty FEN parameter";
-        if (!FEN.matches(Regexes.FENRegex)) return "Invalid FEN";
+        try {
+            FENScanner.scan(FEN);
+        } catch (InvalidFENException e) {
+            return "Invalid FEN: " + e.getMessage();
+        }
         return null;
     }
 
@@ -158,6 +166,51 @@ public class APIController {
         }
     }
 
+    /**
+     * Counts the leaf nodes of the legal move tree of the position
+     *
+     * @param FEN     FEN of the position
+     * @param depth   Depth in plies (1 to 6)
+     * @param threads Number of threads to split the root moves across
+     * @return <code>JSON</code> - Node count of each root move, total nodes and nodes per second
+     */
+    @GetMapping(value = "/perft", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> perft(@RequestParam("fen") String FEN, @RequestParam(defaultValue = "1") int depth, @RequestParam(defaultValue = "1") int threads) {
+        String error = validateFEN(FEN);
+        if (error != null) throw new BadRequestException(error);
+        if (depth < 1 || depth > MAX_PERFT_DEPTH)
+            throw new BadRequestException("Depth must be between 1 and " + MAX_PERFT_DEPTH);
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (threads < 1 || threads > processors)
+            throw new BadRequestException("Threads must be between 1 and " + processors);
+
+        try {
+            BoardModel boardModel = BoardModel.parseFEN(FEN.trim());
+            if (boardModel == null) throw new BadRequestException("Invalid FEN");
+
+            long start = System.nanoTime();
+            LinkedHashMap<String, Long> divide = Perft.divide(boardModel, depth, threads);
+            long time = System.nanoTime() - start, nodes = 0;
+            for (long count : divide.values()) nodes += count;
+
+            PerftData data = new PerftData();
+            data.setSuccess(true);
+            data.setMessage("Perft completed successfully");
+            data.setDepth(depth);
+            data.setThreads(threads);
+            data.setNodes(nodes);
+            data.setTime(time / 1_000_000);
+            data.setNps(time == 0 ? nodes : nodes * 1_000_000_000L / time);
+            data.setDivide(divide);
+            return new ResponseEntity<>(data, HttpStatus.OK);
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            Log.e(TAG, "perft: Error occurred while running perft", e);
+            throw new InternalServerErrorException("Unexpected error occurred! Could not run perft");
+        }
+    }
+
     @GetMapping(value = "/openings/{eco}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Object> opening(@PathVariable String eco) {
         try {
@@ -0,0 +1,19 @@
+package com.drdedd.chess.api.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Perft result of a position, time is in milliseconds
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class PerftData extends ResponseData {
+    int depth, threads;
+    long nodes, time, nps;
+    LinkedHashMap<String, Long> divide;
+}
@@ -4,7 +4,7 @@ import com.drdedd.chess.api.data.EvaluationData;
 import com.drdedd.chess.engine.stockfish.EngineLine;
 import com.drdedd.chess.engine.stockfish.Stockfish;
 import com.drdedd.chess.engine.stockfish.StockfishOption;
-import com.drdedd.chess.game.data.Regexes;
+import com.drdedd.chess.game.board.FENScanner;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,7 +23,7 @@ public class FENEvaluator {
         data.setSuccess(false);
         data.setFen(FEN);
 
-        if (!FEN.matches(Regexes.FENRegex)) {
+        if (!FENScanner.isValid(FEN)) {
             data.setError("Invalid FEN!");
             return data;
         }
@@ -11,12 +11,14 @@ import com.drdedd.chess.game.gameData.ChessAnnotation;
 import com.drdedd.chess.game.pgn.PGN;
 import com.drdedd.chess.game.pgn.PGNData;
 import com.drdedd.chess.game.pgn.PGNParser;
+import com.drdedd.chess.game.pgn.PGNWriter;
 import com.drdedd.chess.misc.Log;
 import com.drdedd.chess.misc.MiscMethods;
 import lombok.Getter;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class PGNAnalyzer {
     public static final int NO_LIMIT = -1, MAX_DEPTH = 30, MIN_DEPTH = 15;
@@ -73,7 +75,7 @@ public class PGNAnalyzer {
             pgnData = pgn.getPGNData();
             FENs = new ArrayList<>(parsedGame.FENs());
             moves = new ArrayList<>(pgn.getUCIMoves());
-            LinkedHashMap<String, String> tagsMap = pgnData.getTagsMap();
+            Map<String, String> tagsMap = pgnData.getTagsMap();
             startsWithWhite = !tagsMap.containsKey(PGN.TAG_FEN) || tagsMap.get(PGN.TAG_FEN).contains(" w ");
 
             // Initialize engine
@@ -334,6 +336,15 @@ public class PGNAnalyzer {
         return pgnString;
     }
 
+    /**
+     * Writes the last analysed game as a complete PGN, for exports of many analysed games
+     *
+     * @param writer Writer of the export
+     */
+    public void writeAnalyzedPGN(PGNWriter writer) throws IOException {
+        writer.write(pgn);
+    }
+
     /**
      * Prints and stores the final report of the game
      */
@@ -1,7 +1,7 @@
 package com.drdedd.chess.engine.stockfish;
 
 import com.drdedd.chess.engine.HardwareInfo;
-import com.drdedd.chess.game.data.Regexes;
+import com.drdedd.chess.game.board.FENScanner;
 import com.drdedd.chess.misc.MiscMethods;
 import lombok.Getter;
 
@@ -424,7 +424,7 @@ public class Stockfish {
     }
 
     private boolean isInvalidFEN(String FEN) {
-        return !FEN.matches(Regexes.FENRegex);
+        return !FENScanner.isValid(FEN);
     }
 
     private String readLine(BufferedReader reader) {
@@ -1,6 +1,11 @@
 package com.drdedd.chess.game;
 
-import com.drdedd.chess.game.data.Regexes;
+import com.drdedd.chess.game.board.Attacks;
+import com.drdedd.chess.game.board.Bitboards;
+import com.drdedd.chess.game.board.FENScanner;
+import com.drdedd.chess.game.board.InvalidFENException;
+import com.drdedd.chess.game.board.PackedPosition;
+import com.drdedd.chess.game.board.Zobrist;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.gameData.Unicodes;
@@ -10,20 +15,105 @@ import lombok.Getter;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.regex.Matcher;
 
 /**
  * Stores pieces location, enPassant square and other board UI data<br>
+ * Position is backed by one bitboard per piece type and a 64 square mailbox, <code>Piece</code> objects are views of the occupied squares
  */
 public class BoardModel implements Serializable, Cloneable {
     private static final String TAG = "BoardModel";
-    public final HashMap<String, Integer> resIDs = new HashMap<>();
-    private final HashMap<String, String> unicodes = new HashMap<>();
+    /**
+     * Castling right flags
+     */
+    public static final int WHITE_SHORT_CASTLE = 1, WHITE_LONG_CASTLE = 2, BLACK_SHORT_CASTLE = 4, BLACK_LONG_CASTLE = 8;
+    /**
+     * Square value when there is no en passant square
+     */
+    public static final int NO_SQUARE = -1;
+    /**
+     * <code>Rank</code> ordinals as constants, so that they can be used as switch labels
+     */
+    private static final int KING = 0, QUEEN = 1, ROOK = 2, BISHOP = 3, KNIGHT = 4, PAWN = 5;
+    /**
+     * Castling rights kept after a move from or to each square
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, WHITE_SHORT_CASTLE | WHITE_LONG_CASTLE | BLACK_SHORT_CASTLE | BLACK_LONG_CASTLE);
+        CASTLING_MASK[0] &= ~WHITE_LONG_CASTLE;
+        CASTLING_MASK[7] &= ~WHITE_SHORT_CASTLE;
+        CASTLING_MASK[4] &= ~(WHITE_SHORT_CASTLE | WHITE_LONG_CASTLE);
+        CASTLING_MASK[56] &= ~BLACK_LONG_CASTLE;
+        CASTLING_MASK[63] &= ~BLACK_SHORT_CASTLE;
+        CASTLING_MASK[60] &= ~(BLACK_SHORT_CASTLE | BLACK_LONG_CASTLE);
+    }
+
     /**
      * Set of all the pieces on the board
      */
     public LinkedHashSet<Piece> pieces = new LinkedHashSet<>();
-    private King whiteKing = null, blackKing = null;
+    /**
+     * Bitboard of each piece type, indexed by {@link Bitboards#pieceIndex(Player, Rank)}
+     */
+    private long[] bitboards = new long[Bitboards.PIECE_TYPES];
+    /**
+     * Occupancy of each player, indexed by <code>Player.ordinal()</code>
+     */
+    private long[] occupancy = new long[2];
+    /**
+     * Piece index on each square or {@link Bitboards#EMPTY}
+     */
+    private byte[] mailbox = new byte[64];
+    /**
+     * <code>Piece</code> view on each square
+     */
+    private Piece[] squares = new Piece[64];
+    /**
+     * Squares attacked by the piece on each square, <code>0</code> for an empty square
+     */
+    private long[] attacksFrom = new long[64];
+    /**
+     * Squares attacked by each player, indexed by <code>Player.ordinal()</code>
+     */
+    private long[] attackMaps = new long[2];
+    /**
+     * Occupancy of each player when the attack maps were last updated
+     */
+    private long[] attackSources = new long[2];
+    /**
+     * Squares changed since the attack maps were last updated
+     */
+    private long changedSquares = -1L;
+    /**
+     * Undo records of the moves made with {@link BoardModel#makeMove(int, int, Rank)}
+     */
+    private long[] undoStack = new long[64];
+    /**
+     * Zobrist key of the position before each move made, parallel to the undo records
+     */
+    private long[] keyHistory = new long[64];
+    private int ply;
+    /**
+     * FEN of the position when {@link BoardModel#toFEN()} was last called, valid while the key and the FEN state are unchanged
+     */
+    private String cachedFEN;
+    private long cachedFENKey, cachedFENState;
+    /**
+     * Zobrist key of the position, maintained incrementally on every move
+     */
+    @Getter
+    private long zobristKey;
+    /**
+     * Castling rights of both the players as castling flags
+     */
+    @Getter
+    private int castlingRights;
+    /**
+     * En passant target square or {@link BoardModel#NO_SQUARE}
+     */
+    @Getter
+    private int enPassant = NO_SQUARE;
     public Pawn enPassantPawn = null;
     public String enPassantSquare = "", fromSquare = "", toSquare = "";
     @Getter
@@ -32,30 +122,8 @@ public class BoardModel implements Serializable, Cloneable {
     private Player turn;
 
     public BoardModel(boolean initializeBoard) {
-        Player.WHITE.setInCheck(false);
-        Player.BLACK.setInCheck(false);
-
-        unicodes.put("QW", Unicodes.QW);
-        unicodes.put("RW", Unicodes.RW);
-        unicodes.put("BW", Unicodes.BW);
-        unicodes.put("NW", Unicodes.NW);
-
-        unicodes.put("QB", Unicodes.QB);
-        unicodes.put("RB", Unicodes.RB);
-        unicodes.put("BB", Unicodes.BB);
-        unicodes.put("NB", Unicodes.NB);
-
+        Arrays.fill(mailbox, Bitboards.EMPTY);
         if (initializeBoard) resetBoard();
-
-        resIDs.put(Player.WHITE + Rank.QUEEN.toString(), -1);
-        resIDs.put(Player.WHITE + Rank.ROOK.toString(), -1);
-        resIDs.put(Player.WHITE + Rank.BISHOP.toString(), -1);
-        resIDs.put(Player.WHITE + Rank.KNIGHT.toString(), -1);
-
-        resIDs.put(Player.BLACK + Rank.QUEEN.toString(), -1);
-        resIDs.put(Player.BLACK + Rank.ROOK.toString(), -1);
-        resIDs.put(Player.BLACK + Rank.BISHOP.toString(), -1);
-        resIDs.put(Player.BLACK + Rank.KNIGHT.toString(), -1);
     }
 
     /**
@@ -64,6 +132,7 @@ public class BoardModel implements Serializable, Cloneable {
     public void resetBoard() {
         int i;
         pieces.clear();
+        clearBoard();
         for (i = 0; i <= 1; i++) {
             addPiece(new Rook(Player.WHITE, 0, i * 7, Unicodes.RW));
             addPiece(new Knight(Player.WHITE, 0, 1 + i * 5, Unicodes.NW));
@@ -91,36 +160,38 @@ public class BoardModel implements Serializable, Cloneable {
 
         halfMove = 0;
         fullMove = 1;
+        castlingRights = WHITE_SHORT_CASTLE | WHITE_LONG_CASTLE | BLACK_SHORT_CASTLE | BLACK_LONG_CASTLE;
+        enPassant = NO_SQUARE;
+        enPassantPawn = null;
+        enPassantSquare = "";
+        ply = 0;
 
         turn = Player.WHITE;
+        refreshKey();
     }
 
     /**
-     * Returns Black king from <code>{@link BoardModel#pieces}</code> set
+     * Returns Black king from the king bitboard
      *
-     * @return <code>{@link King}</code>
+     * @return <code>{@link King}|null</code>
      */
     public King getBlackKing() {
-        for (Piece piece : pieces)
-            if (piece.isKing() && !piece.isWhite()) {
-                blackKing = (King) piece;
-                break;
-            }
-        return blackKing;
+        return getKing(Player.BLACK);
     }
 
     /**
-     * Returns White king from <code>{@link BoardModel#pieces}</code> set
+     * Returns White king from the king bitboard
      *
-     * @return <code>{@link  King}</code>
+     * @return <code>{@link  King}|null</code>
      */
     public King getWhiteKing() {
-        for (Piece piece : pieces)
-            if (piece.isKing() && piece.isWhite()) {
-                whiteKing = (King) piece;
-                break;
-            }
-        return whiteKing;
+        return getKing(Player.WHITE);
+    }
+
+    private King getKing(Player player) {
+        long king = bitboards[Bitboards.pieceIndex(player, Rank.KING)];
+        if (king == 0) return null;
+        return (King) squares[Bitboards.firstSquare(king)];
     }
 
     /**
@@ -132,9 +203,36 @@ public class BoardModel implements Serializable, Cloneable {
      */
     public Piece pieceAt(int row, int col) {
         if (row < 0 || row > 7 || col < 0 || col > 7) return null;
-        for (Piece piece : pieces)
-            if (!piece.isCaptured() && piece.getCol() == col && piece.getRow() == row) return piece;
-        return null;
+        return squares[Bitboards.square(row, col)];
+    }
+
+    /**
+     * @param square Square index (<code>row * 8 + col</code>)
+     * @return Piece index at the square or {@link Bitboards#EMPTY}
+     */
+    public int pieceIndexAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * @return Bitboard of the given piece type
+     */
+    public long getBitboard(Player player, Rank rank) {
+        return bitboards[Bitboards.pieceIndex(player, rank)];
+    }
+
+    /**
+     * @return Bitboard of all the pieces of the player
+     */
+    public long getOccupancy(Player player) {
+        return occupancy[player.ordinal()];
+    }
+
+    /**
+     * @return Bitboard of all the pieces on the board
+     */
+    public long getOccupied() {
+        return occupancy[0] | occupancy[1];
     }
 
     /**
@@ -144,6 +242,8 @@ public class BoardModel implements Serializable, Cloneable {
      */
     public boolean capturePiece(Piece piece) {
         piece.setCaptured(true);
+        int square = Bitboards.square(piece.getRow(), piece.getCol());
+        if (squares[square] == piece) clearSquare(square);
         return piece.isCaptured();
     }
 
@@ -154,6 +254,336 @@ public class BoardModel implements Serializable, Cloneable {
      */
     public void addPiece(Piece piece) {
         pieces.add(piece);
+        if (!piece.isCaptured()) place(piece);
+    }
+
+    /**
+     * Moves the piece to the given position, any piece on the destination square is captured<br>
+     * Pieces on the board must be moved through this method to keep the bitboards in sync
+     *
+     * @param piece <code>Piece</code> to be moved
+     * @param row   Row number of new position
+     * @param col   Column number of new position
+     */
+    public void movePiece(Piece piece, int row, int col) {
+        int from = Bitboards.square(piece.getRow(), piece.getCol());
+        if (squares[from] == piece) clearSquare(from);
+        Piece capturedPiece = squares[Bitboards.square(row, col)];
+        if (capturedPiece != null && capturedPiece != piece) capturedPiece.setCaptured(true);
+        piece.moveTo(row, col);
+        place(piece);
+    }
+
+    /**
+     * Sets the piece on its square, replacing any piece already on it
+     */
+    private void place(Piece piece) {
+        int square = Bitboards.square(piece.getRow(), piece.getCol());
+        if (mailbox[square] != Bitboards.EMPTY) clearSquare(square);
+        setBits(square, Bitboards.pieceIndex(piece));
+        squares[square] = piece;
+    }
+
+    /**
+     * Removes the piece on the square from the bitboards and the mailbox
+     */
+    private void clearSquare(int square) {
+        int index = mailbox[square];
+        if (index == Bitboards.EMPTY) return;
+        clearBits(square, index);
+        squares[square] = null;
+    }
+
+    /**
+     * Removes all pieces from the bitboards and the mailbox
+     */
+    private void clearBoard() {
+        Arrays.fill(bitboards, 0);
+        Arrays.fill(occupancy, 0);
+        Arrays.fill(mailbox, Bitboards.EMPTY);
+        Arrays.fill(squares, null);
+        zobristKey = 0;
+        changedSquares = -1L;
+    }
+
+    private void setBits(int square, int index) {
+        long bit = Bitboards.bit(square);
+        bitboards[index] |= bit;
+        occupancy[index / 6] |= bit;
+        mailbox[square] = (byte) index;
+        zobristKey ^= Zobrist.piece(index, square);
+        changedSquares |= bit;
+    }
+
+    private void clearBits(int square, int index) {
+        long bit = Bitboards.bit(square);
+        bitboards[index] &= ~bit;
+        occupancy[index / 6] &= ~bit;
+        mailbox[square] = Bitboards.EMPTY;
+        zobristKey ^= Zobrist.piece(index, square);
+        changedSquares |= bit;
+    }
+
+    /**
+     * Brings the attack maps up to date with the squares changed since the last update<br>
+     * Only the pieces on the changed squares and the sliders whose rays reach a changed square are recomputed
+     */
+    private void updateAttacks() {
+        long changed = changedSquares;
+        if (changed == 0) return;
+        changedSquares = 0;
+
+        long occupied = getOccupied(), updated = changed;
+        long sliders = 0;
+        for (int player = 0; player < 12; player += 6)
+            sliders |= bitboards[player + QUEEN] | bitboards[player + ROOK] | bitboards[player + BISHOP];
+        for (sliders &= ~changed; sliders != 0; sliders &= sliders - 1) {
+            int square = Long.numberOfTrailingZeros(sliders);
+            if ((attacksFrom[square] & changed) != 0) {
+                attacksFrom[square] = pieceAttacks(square, mailbox[square], occupied);
+                updated |= Bitboards.bit(square);
+            }
+        }
+        for (; changed != 0; changed &= changed - 1) {
+            int square = Long.numberOfTrailingZeros(changed);
+            attacksFrom[square] = mailbox[square] == Bitboards.EMPTY ? 0 : pieceAttacks(square, mailbox[square], occupied);
+        }
+
+        // A player's map is rebuilt only if one of its pieces (before or after the change) was updated
+        for (int player = 0; player < 2; player++) {
+            if (((attackSources[player] | occupancy[player]) & updated) == 0) continue;
+            long attacks = 0;
+            for (long pieces = occupancy[player]; pieces != 0; pieces &= pieces - 1)
+                attacks |= attacksFrom[Long.numberOfTrailingZeros(pieces)];
+            attackMaps[player] = attacks;
+            attackSources[player] = occupancy[player];
+        }
+    }
+
+    private static long pieceAttacks(int square, int index, long occupied) {
+        return switch (index % 6) {
+            case KING -> Attacks.kingAttacks(square);
+            case QUEEN -> Attacks.queenAttacks(square, occupied);
+            case ROOK -> Attacks.rookAttacks(square, occupied);
+            case BISHOP -> Attacks.bishopAttacks(square, occupied);
+            case KNIGHT -> Attacks.knightAttacks(square);
+            default -> Attacks.pawnAttacks(Bitboards.player(index), square);
+        };
+    }
+
+    /**
+     * Attack map of the player, maintained incrementally as pieces are placed, moved and removed<br>
+     * Includes the squares of the player's own pieces that are defended
+     *
+     * @return Bitboard of all the squares attacked by the player
+     */
+    public long getAttackMap(Player player) {
+        updateAttacks();
+        return attackMaps[player.ordinal()];
+    }
+
+    /**
+     * En passant key of the position, the en passant file is hashed only when a pawn of the player to play can capture on it
+     */
+    private long enPassantKey() {
+        if (enPassant == NO_SQUARE) return 0;
+        Player player = turn == Player.BLACK ? Player.BLACK : Player.WHITE, opponent = player == Player.WHITE ? Player.BLACK : Player.WHITE;
+        return (Attacks.pawnAttacks(opponent, enPassant) & bitboards[Bitboards.pieceIndex(player, Rank.PAWN)]) != 0 ? Zobrist.enPassant(enPassant) : 0;
+    }
+
+    /**
+     * Recomputes the Zobrist key from scratch, after the position is set up without moves
+     */
+    private void refreshKey() {
+        zobristKey = Zobrist.castling(castlingRights) ^ enPassantKey() ^ (turn == Player.BLACK ? Zobrist.blackToPlay() : 0);
+        for (int square = 0; square < 64; square++)
+            if (mailbox[square] != Bitboards.EMPTY) zobristKey ^= Zobrist.piece(mailbox[square], square);
+    }
+
+    /**
+     * Counts the earlier occurrences of the current position with the same player to play<br>
+     * Only the positions since the last capture or pawn move (the half move clock) are compared
+     *
+     * @return Number of times the position occurred before
+     */
+    public int getRepetitionCount() {
+        int count = 0;
+        for (int i = ply - 2, end = Math.max(0, ply - halfMove); i >= end; i -= 2)
+            if (keyHistory[i] == zobristKey) count++;
+        return count;
+    }
+
+    /**
+     * Copies the first moves of another board's history (undo records and keys), so a position restored from a
+     * {@link PackedPosition} keeps counting repetitions
+     *
+     * @param source Board the position was reached on
+     * @param plies  Number of moves to copy
+     */
+    public void copyHistory(BoardModel source, int plies) {
+        undoStack = Arrays.copyOf(source.undoStack, Math.max(plies, 64));
+        keyHistory = Arrays.copyOf(source.keyHistory, Math.max(plies, 64));
+        ply = plies;
+    }
+
+    /**
+     * @return Number of moves made on the board
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Makes the move in place on the bitboards and the mailbox, the <code>Piece</code> views are not updated<br>
+     * Every call must be reverted with {@link BoardModel#unmakeMove()} before the views are used again
+     *
+     * @param from      Starting square of the piece
+     * @param to        Destination square of the piece
+     * @param promotion Promotion rank of a pawn move to the last rank, <code>null</code> otherwise
+     */
+    public void makeMove(int from, int to, Rank promotion) {
+        int moving = mailbox[from], captureSquare = to, captured, rank = moving % 6, player = moving / 6;
+        if (rank == PAWN && to == enPassant) captureSquare = Bitboards.square(Bitboards.row(from), Bitboards.col(to));
+        captured = mailbox[captureSquare];
+
+        if (ply == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, ply * 2);
+            keyHistory = Arrays.copyOf(keyHistory, ply * 2);
+        }
+        keyHistory[ply] = zobristKey;
+        zobristKey ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+        undoStack[ply++] = from | to << 6 | (promotion == null ? 0 : promotion.ordinal()) << 12 | (captured + 1) << 15 | castlingRights << 19 | (enPassant + 1) << 23 | (long) halfMove << 30;
+
+        if (captured != Bitboards.EMPTY) clearBits(captureSquare, captured);
+        clearBits(from, moving);
+        setBits(to, promotion == null ? moving : player * 6 + promotion.ordinal());
+        if (rank == KING && Math.abs(to - from) == 2) {
+            int rook = player * 6 + ROOK;
+            clearBits(to > from ? from + 3 : from - 4, rook);
+            setBits((from + to) / 2, rook);
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassant = rank == PAWN && Math.abs(to - from) == 16 ? (from + to) / 2 : NO_SQUARE;
+        halfMove = rank == PAWN || captured != Bitboards.EMPTY ? 0 : halfMove + 1;
+        if (player == Player.BLACK.ordinal()) fullMove++;
+        turn = player == Player.WHITE.ordinal() ? Player.BLACK : Player.WHITE;
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.blackToPlay() ^ enPassantKey();
+    }
+
+    /**
+     * Reverts the last move made with {@link BoardModel#makeMove(int, int, Rank)}
+     */
+    public void unmakeMove() {
+        long undo = undoStack[--ply];
+        int from = (int) (undo & 63), to = (int) (undo >>> 6 & 63), promotion = (int) (undo >>> 12 & 7), captured = (int) (undo >>> 15 & 15) - 1;
+        int piece = mailbox[to], player = piece / 6, moving = promotion == 0 ? piece : player * 6 + PAWN;
+
+        castlingRights = (int) (undo >>> 19 & 15);
+        enPassant = (int) (undo >>> 23 & 127) - 1;
+        halfMove = (int) (undo >>> 30);
+
+        clearBits(to, piece);
+        setBits(from, moving);
+        if (moving % 6 == KING && Math.abs(to - from) == 2) {
+            int rook = player * 6 + ROOK;
+            clearBits((from + to) / 2, rook);
+            setBits(to > from ? from + 3 : from - 4, rook);
+        }
+        if (captured != Bitboards.EMPTY)
+            setBits(moving % 6 == PAWN && to == enPassant ? Bitboards.square(Bitboards.row(from), Bitboards.col(to)) : to, captured);
+
+        if (player == Player.BLACK.ordinal()) fullMove--;
+        turn = player == Player.WHITE.ordinal() ? Player.WHITE : Player.BLACK;
+        zobristKey = keyHistory[ply];
+    }
+
+    /**
+     * Plays a move of the game, updates the bitboards and the <code>Piece</code> views
+     *
+     * @param from      Starting square of the piece
+     * @param to        Destination square of the piece
+     * @param promotion Promotion rank of a pawn move to the last rank, <code>null</code> otherwise
+     */
+    public void playMove(int from, int to, Rank promotion) {
+        Piece piece = squares[from];
+        int captureSquare = piece.getRank() == Rank.PAWN && to == enPassant ? Bitboards.square(Bitboards.row(from), Bitboards.col(to)) : to;
+        Piece capturedPiece = squares[captureSquare];
+        makeMove(from, to, promotion);
+
+        if (capturedPiece != null) {
+            capturedPiece.setCaptured(true);
+            squares[captureSquare] = null;
+        }
+        squares[from] = null;
+        if (piece.getRank() == Rank.KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? from + 3 : from - 4, rookTo = (from + to) / 2;
+            Piece rook = squares[rookFrom];
+            squares[rookFrom] = null;
+            rook.moveTo(Bitboards.row(rookTo), Bitboards.col(rookTo));
+            squares[rookTo] = rook;
+        }
+        if (promotion != null) {
+            pieces.remove(piece);
+            piece = createPiece(piece.getPlayer(), promotion, Bitboards.row(to), Bitboards.col(to));
+            pieces.add(piece);
+        } else piece.moveTo(Bitboards.row(to), Bitboards.col(to));
+        squares[to] = piece;
+
+        if (enPassant == NO_SQUARE) {
+            enPassantPawn = null;
+            enPassantSquare = "";
+        } else {
+            enPassantPawn = (Pawn) piece;
+            enPassantSquare = MiscMethods.toNotation(enPassant);
+        }
+    }
+
+    /**
+     * Checks whether the square is attacked by any piece of the player
+     *
+     * @param square Square index (<code>row * 8 + col</code>)
+     * @param player Attacking player
+     * @return <code>true|false</code>
+     */
+    public boolean isSquareAttacked(int square, Player player) {
+        return (getAttackMap(player) & Bitboards.bit(square)) != 0;
+    }
+
+    /**
+     * Checks whether the king of the player is attacked by the opponent
+     *
+     * @return <code>true|false</code>
+     */
+    public boolean isKingAttacked(Player player) {
+        long king = bitboards[Bitboards.pieceIndex(player, Rank.KING)];
+        return (getAttackMap(player == Player.WHITE ? Player.BLACK : Player.WHITE) & king) != 0;
+    }
+
+    /**
+     * @param player     Player to castle
+     * @param shortCastle Short or long castle
+     * @return <code>true|false</code> - Player has the castling right
+     */
+    public boolean hasCastlingRight(Player player, boolean shortCastle) {
+        int flag = shortCastle ? WHITE_SHORT_CASTLE : WHITE_LONG_CASTLE;
+        if (player == Player.BLACK) flag <<= 2;
+        return (castlingRights & flag) != 0;
+    }
+
+    /**
+     * Creates a new piece view with the unicode of the player's piece
+     */
+    private static Piece createPiece(Player player, Rank rank, int row, int col) {
+        boolean isWhite = player == Player.WHITE;
+        return switch (rank) {
+            case KING -> new King(player, row, col, isWhite ? Unicodes.KW : Unicodes.KB);
+            case QUEEN -> new Queen(player, row, col, isWhite ? Unicodes.QW : Unicodes.QB);
+            case ROOK -> new Rook(player, row, col, isWhite ? Unicodes.RW : Unicodes.RB);
+            case BISHOP -> new Bishop(player, row, col, isWhite ? Unicodes.BW : Unicodes.BB);
+            case KNIGHT -> new Knight(player, row, col, isWhite ? Unicodes.NW : Unicodes.NB);
+            case PAWN -> new Pawn(player, row, col, isWhite ? Unicodes.PW : Unicodes.PB);
+        };
     }
 
     /**
@@ -168,15 +598,11 @@ public class BoardModel implements Serializable, Cloneable {
     public Piece promote(Piece pawn, Rank rank, int row, int col) {
         Piece piece = null;
 
-        if (rank == Rank.QUEEN)
-            piece = new Queen(pawn.getPlayer(), row, col, unicodes.get("Q" + pawn.getPlayer().toString().charAt(0)));
-        if (rank == Rank.ROOK)
-            piece = new Rook(pawn.getPlayer(), row, col, unicodes.get("R" + pawn.getPlayer().toString().charAt(0)));
-        if (rank == Rank.BISHOP)
-            piece = new Bishop(pawn.getPlayer(), row, col, unicodes.get("B" + pawn.getPlayer().toString().charAt(0)));
-        if (rank == Rank.KNIGHT)
-            piece = new Knight(pawn.getPlayer(), row, col, unicodes.get("N" + pawn.getPlayer().toString().charAt(0)));
+        if (rank == Rank.QUEEN || rank == Rank.ROOK || rank == Rank.BISHOP || rank == Rank.KNIGHT)
+            piece = createPiece(pawn.getPlayer(), rank, row, col);
 
+        int pawnSquare = Bitboards.square(pawn.getRow(), pawn.getCol());
+        if (squares[pawnSquare] == pawn) clearSquare(pawnSquare);
         if (piece != null) {
             addPiece(piece);
 //            System.out.println(TAG+" promote: Promoted " + pawn.getPosition().charAt(1) + " file pawn to " + piece.getRank());
@@ -240,9 +666,24 @@ public class BoardModel implements Serializable, Cloneable {
         try {
             BoardModel boardModelClone = (BoardModel) super.clone();
             boardModelClone.pieces = new LinkedHashSet<>();
-            for (Piece piece : pieces) boardModelClone.pieces.add(piece.clone());
+            boardModelClone.bitboards = bitboards.clone();
+            boardModelClone.occupancy = occupancy.clone();
+            boardModelClone.mailbox = mailbox.clone();
+            boardModelClone.squares = new Piece[64];
+            boardModelClone.undoStack = undoStack.clone();
+            boardModelClone.keyHistory = keyHistory.clone();
+            boardModelClone.attacksFrom = attacksFrom.clone();
+            boardModelClone.attackMaps = attackMaps.clone();
+            boardModelClone.attackSources = attackSources.clone();
+            for (Piece piece : pieces) {
+                Piece pieceClone = piece.clone();
+                boardModelClone.pieces.add(pieceClone);
+                int square = Bitboards.square(piece.getRow(), piece.getCol());
+                if (squares[square] == piece) boardModelClone.squares[square] = pieceClone;
+            }
 
-            if (enPassantPawn != null) boardModelClone.enPassantPawn = (Pawn) enPassantPawn.clone();
+            if (enPassantPawn != null)
+                boardModelClone.enPassantPawn = (Pawn) boardModelClone.squares[Bitboards.square(enPassantPawn.getRow(), enPassantPawn.getCol())];
             else boardModelClone.enPassantPawn = null;
 
             return boardModelClone;
@@ -253,179 +694,138 @@ public class BoardModel implements Serializable, Cloneable {
 
     /**
      * Converts current position to FEN Notation <br>
+     * The FEN is cached on the position and written again only after the position or the move clocks change
      *
      * @return <code>String</code> - FEN of the <code>BoardModel</code>
      * @see <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">More about FEN</a>
      */
     public String toFEN() {
-        String[] fenStrings = toFENStrings();
-        return String.format(Locale.ENGLISH, "%s %s %s %s %s %s", fenStrings[0], fenStrings[1], fenStrings[2], fenStrings[3], fenStrings[4], fenStrings[5]);
+        long state = fenState();
+        if (cachedFEN == null || cachedFENKey != zobristKey || cachedFENState != state) {
+            StringBuilder FEN = new StringBuilder(90);
+            appendFEN(FEN);
+            cachedFEN = FEN.toString();
+            cachedFENKey = zobristKey;
+            cachedFENState = state;
+        }
+        return cachedFEN;
     }
 
-    private String[] toFENStrings() {
-        String[] FEN = new String[6];
+    /**
+     * Writes the FEN of the current position to the builder, the pieces are read directly from the mailbox
+     *
+     * @param FEN Builder to append the FEN to, reusable across positions
+     */
+    public void appendFEN(StringBuilder FEN) {
+        appendFEN(FEN, mailbox, turn, castlingRights, enPassant, halfMove, fullMove);
+    }
 
-        StringBuilder position = new StringBuilder();
-        int i, j, c = 0;
-        for (i = 7; i >= 0; i--) {
-            for (j = 0; j < 8; j++) {
-                Piece tempPiece = pieceAt(i, j);
-                if (tempPiece == null) c++;
-                else {
-                    if (c > 0) {
-                        position.append(c);
-                        c = 0;
-                    }
-                    position.append(MiscMethods.getPieceChar(tempPiece));
+    /**
+     * Writes the FEN of a position given as primitives to the builder
+     *
+     * @param FEN     Builder to append the FEN to
+     * @param mailbox Piece index on each square or {@link Bitboards#EMPTY}
+     */
+    public static void appendFEN(StringBuilder FEN, byte[] mailbox, Player turn, int castlingRights, int enPassant, int halfMove, int fullMove) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int square = row * 8, end = square + 8; square < end; square++) {
+                int piece = mailbox[square];
+                if (piece == Bitboards.EMPTY) {
+                    empty++;
+                    continue;
                 }
+                if (empty > 0) {
+                    FEN.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                FEN.append(Bitboards.PIECE_CHARS.charAt(piece));
             }
-            if (c > 0) {
-                position.append(c);
-                c = 0;
-            }
-            if (i != 0) position.append("/");
+            if (empty > 0) FEN.append((char) ('0' + empty));
+            if (row != 0) FEN.append('/');
         }
 
-        FEN[0] = String.valueOf(position);
-
-        if (isWhiteToPlay()) FEN[1] = "w";
-        else FEN[1] = "b";
+        FEN.append(' ').append(turn == Player.WHITE ? 'w' : 'b').append(' ');
 
-        StringBuilder castleRights = getCastleRights();
-        if (castleRights.isEmpty()) FEN[2] = "-";
-        else FEN[2] = String.valueOf(castleRights);
-
-        if (enPassantSquare.isEmpty()) FEN[3] = "-";
-        else FEN[3] = enPassantSquare;
+        if (castlingRights == 0) FEN.append('-');
+        else {
+            if ((castlingRights & WHITE_SHORT_CASTLE) != 0) FEN.append('K');
+            if ((castlingRights & WHITE_LONG_CASTLE) != 0) FEN.append('Q');
+            if ((castlingRights & BLACK_SHORT_CASTLE) != 0) FEN.append('k');
+            if ((castlingRights & BLACK_LONG_CASTLE) != 0) FEN.append('q');
+        }
+        FEN.append(' ');
 
-        FEN[4] = String.valueOf(halfMove);
-        FEN[5] = String.valueOf(fullMove);
+        if (enPassant == NO_SQUARE) FEN.append('-');
+        else FEN.append((char) ('a' + Bitboards.col(enPassant))).append((char) ('1' + Bitboards.row(enPassant)));
 
-        return FEN;
+        FEN.append(' ').append(halfMove).append(' ').append(fullMove);
     }
 
-    private StringBuilder getCastleRights() {
-        King whiteKing = getWhiteKing(), blackKing = getBlackKing();
-        StringBuilder castleRights = new StringBuilder();
-        if (whiteKing != null) {
-            if (whiteKing.isNotShortCastled()) castleRights.append('K');
-            if (whiteKing.isNotLongCastled()) castleRights.append('Q');
-        }
-        if (blackKing != null) {
-            if (blackKing.isNotShortCastled()) castleRights.append('k');
-            if (blackKing.isNotLongCastled()) castleRights.append('q');
-        }
-        return castleRights;
+    /**
+     * FEN fields not covered by the Zobrist key: the en passant square (the key only has it when capturable) and the move clocks
+     */
+    private long fenState() {
+        return (long) fullMove << 32 | (long) halfMove << 7 | enPassant + 1;
     }
 
     /**
-     * Parses the valid FEN to BoardModel
+     * Parses the FEN to <code>BoardModel</code>
      *
-     * @param FEN Valid FEN String
-     * @return <code>BoardModel|null</code>
+     * @param FEN FEN of the position
+     * @return <code>BoardModel|null</code> - <code>null</code> if the FEN is invalid
+     * @see <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">More about FEN</a>
      */
     public static BoardModel parseFEN(String FEN) {
-        BoardModel boardModel = new BoardModel(false);
-        Matcher matcher = Regexes.FENPattern.matcher(FEN);
-        if (!matcher.find()) {
-            System.out.println(TAG + " parseFEN: Invalid FEN! FEN didn't match the pattern");
-            return null;
-        }
-        StringTokenizer FENTokens = new StringTokenizer(FEN, " ");
-        int tokens = FENTokens.countTokens();
-        if (tokens > 6 || tokens < 4) {
-            System.out.println(TAG + " parseFEN: Invalid FEN! found " + tokens + " fields");
-            return null;
-        }
-        String board = FENTokens.nextToken();
-        String nextPlayer = FENTokens.nextToken();
-        String castlingAvailability = FENTokens.nextToken();
-        String enPassantSquare = FENTokens.nextToken();
-        String halfMoveClock = "", fullMoveNumber = "";
-        Player activePlayer;
-        boolean whiteShortCastle = false, whiteLongCastle = false, blackShortCastle = false, blackLongCastle = false;
-
-        if (FENTokens.hasMoreTokens()) halfMoveClock = FENTokens.nextToken();
-        if (FENTokens.hasMoreTokens()) fullMoveNumber = FENTokens.nextToken();
-
-        StringTokenizer boardTokens = new StringTokenizer(board, "/");
-        if (boardTokens.countTokens() != 8) {
-            System.out.println(TAG + " parseFEN: Invalid FEN! found " + tokens + " rows in board field");
+        try {
+            return fromFEN(FEN);
+        } catch (InvalidFENException e) {
+            System.out.println(TAG + " parseFEN: Invalid FEN! " + e.getMessage());
             return null;
         }
+    }
 
-//        Convert pieces to BoardModel
-        int i, row = 7, col;
-        while (boardTokens.hasMoreTokens()) {
-            String rank = boardTokens.nextToken();
-            for (i = 0, col = 0; i < rank.length(); i++) {
-                Player player;
-                Piece piece;
-                char ch = rank.charAt(i);
-                if (Character.isDigit(ch)) {
-                    col += ch - '0';
-                    continue;
-                }
-                if (i > 8) {
-                    System.out.println(TAG + " parseFEN: Invalid FEN! found " + col + " columns in rank " + (i + 1));
-                    return null;
-                }
-                player = Character.isUpperCase(ch) ? Player.WHITE : Player.BLACK;
-                boolean isWhite = player == Player.WHITE;
-                switch (Character.toLowerCase(ch)) {
-                    case 'k':
-                        piece = new King(player, row, col, isWhite ? Unicodes.KW : Unicodes.KB);
-                        break;
-                    case 'q':
-                        piece = new Queen(player, row, col, isWhite ? Unicodes.QW : Unicodes.QB);
-                        break;
-                    case 'r':
-                        piece = new Rook(player, row, col, isWhite ? Unicodes.RW : Unicodes.RB);
-                        break;
-                    case 'b':
-                        piece = new Bishop(player, row, col, isWhite ? Unicodes.BW : Unicodes.BB);
-                        break;
-                    case 'n':
-                        piece = new Knight(player, row, col, isWhite ? Unicodes.NW : Unicodes.NB);
-                        break;
-                    case 'p':
-                        piece = new Pawn(player, row, col, isWhite ? Unicodes.PW : Unicodes.PB);
-                        if (row != (isWhite ? 1 : 6)) piece.setMoved(true);
-                        break;
-                    default:
-                        System.out.println(TAG + " parseFEN: Invalid FEN! found invalid character " + ch);
-                        return null;
-                }
-                boardModel.addPiece(piece);
-                col++;
-            }
-            row--;
-        }
-
-//        Player to play next move
-        activePlayer = nextPlayer.equals("w") ? Player.WHITE : Player.BLACK;
+    /**
+     * Converts FEN to <code>BoardModel</code>, the FEN is validated and read in a single pass by the {@link FENScanner}
+     *
+     * @param FEN FEN of the position
+     * @return <code>BoardModel</code> of the position
+     * @throws InvalidFENException If the FEN is malformed or the position is illegal
+     */
+    public static BoardModel fromFEN(String FEN) {
+        FENScanner scanner = FENScanner.scan(FEN);
+        return fromPosition(scanner.getMailbox(), scanner.getTurn(), scanner.getCastlingRights(), scanner.getEnPassant(), scanner.getHalfMove(), scanner.getFullMove());
+    }
 
-//        Castling availability for each player
-        if (!castlingAvailability.equals("-")) {
-            whiteShortCastle = castlingAvailability.contains("K");
-            whiteLongCastle = castlingAvailability.contains("Q");
-            blackShortCastle = castlingAvailability.contains("k");
-            blackLongCastle = castlingAvailability.contains("q");
+    /**
+     * Builds a <code>BoardModel</code> of a position given as primitives, the position is not validated
+     *
+     * @param mailbox        Piece index on each square or {@link Bitboards#EMPTY}
+     * @param castlingRights Castling flags of both the players
+     * @param enPassant      En passant target square or {@link BoardModel#NO_SQUARE}
+     * @return <code>BoardModel</code> of the position
+     */
+    public static BoardModel fromPosition(byte[] mailbox, Player turn, int castlingRights, int enPassant, int halfMove, int fullMove) {
+        BoardModel boardModel = new BoardModel(false);
+        for (int square = 0; square < 64; square++) {
+            if (mailbox[square] == Bitboards.EMPTY) continue;
+            Player player = Bitboards.player(mailbox[square]);
+            Rank rank = Bitboards.rank(mailbox[square]);
+            int row = Bitboards.row(square);
+            Piece piece = createPiece(player, rank, row, Bitboards.col(square));
+            if (rank == Rank.PAWN && row != (player == Player.WHITE ? 1 : 6)) piece.setMoved(true);
+            boardModel.addPiece(piece);
         }
 
-        if (!enPassantSquare.equals("-")) {
-            boardModel.enPassantSquare = enPassantSquare;
-            boardModel.enPassantPawn = (Pawn) boardModel.pieceAt(MiscMethods.toRow(enPassantSquare) - (activePlayer == Player.WHITE ? 1 : -1), MiscMethods.toCol(enPassantSquare));
+        boardModel.turn = turn;
+        boardModel.castlingRights = castlingRights;
+        boardModel.enPassant = enPassant;
+        if (enPassant != NO_SQUARE) {
+            boardModel.enPassantSquare = MiscMethods.toNotation(enPassant);
+            boardModel.enPassantPawn = (Pawn) boardModel.squares[enPassant + (turn == Player.WHITE ? -8 : 8)];
         }
-//        System.out.println(TAG + " parseFEN: Successfully parsed FEN to BoardModel");
-
-//        System.out.println(TAG+ " "+String.format(Locale.ENGLISH, "\nGiven FEN: %s\nConverted BoardModel:%s\nConverted BoardModel FEN: %s\nPlayer to play: %s\nWhite ShortCastle: %b\tLongCastle: %b\nBlack ShortCastle: %b\tLongCastle: %b\nEnPassantPawn: %s", FEN, boardModel, boardModel.toFENStrings()[0], activePlayer, whiteShortCastle, whiteLongCastle, blackShortCastle, blackLongCastle, boardModel.enPassantPawn == null ? "-" : boardModel.enPassantPawn.getPosition()));
-//        if (!halfMoveClock.isEmpty() && !fullMoveNumber.isEmpty())
-//            System.out.println(TAG + " " + String.format("parseFEN: Half move clock: %s, Full move count: %s", halfMoveClock, fullMoveNumber));
-
-        boardModel.setMoveClocks(Integer.parseInt(halfMoveClock), Integer.parseInt(fullMoveNumber));
-
-//        System.out.println(TAG + " parseFEN: Valid FEN\n");
+        boardModel.setMoveClocks(halfMove, fullMove);
+        boardModel.refreshKey();
         return boardModel;
     }
 
@@ -449,5 +849,6 @@ public class BoardModel implements Serializable, Cloneable {
 
     public void setWhiteToPlay(boolean whiteToPlay) {
         turn = whiteToPlay ? Player.WHITE : Player.BLACK;
+        refreshKey();
     }
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package com.drdedd.chess.game;
 
-import com.drdedd.chess.game.data.Regexes;
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.GameHistory;
+import com.drdedd.chess.game.board.Notation;
+import com.drdedd.chess.game.board.PackedPosition;
 import com.drdedd.chess.game.gameData.ChessState;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
+import com.drdedd.chess.game.gameData.UpdateMode;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
 import com.drdedd.chess.game.interfaces.GameUI;
 import com.drdedd.chess.game.pgn.PGN;
@@ -19,9 +25,7 @@ import org.springframework.lang.Nullable;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Matcher;
 
-import static com.drdedd.chess.misc.MiscMethods.toColChar;
 
 /**
  * {@inheritDoc}
@@ -30,29 +34,43 @@ import static com.drdedd.chess.misc.MiscMethods.toColChar;
 public class GameLogic implements GameLogicInterface {
 
     private final static String TAG = "GameLogic";
-    @Getter
-    private static ChessState gameState;
-    @Getter
-    private static String termination;
-    private static boolean gameTerminated;
+    private ChessState gameState;
+    private String termination;
+    private boolean gameTerminated;
+    /**
+     * Player to play is in check in the current position
+     */
+    private boolean inCheck;
     private final GameUI gameUI;
     private final String FEN;
     private final Random random = new Random();
     private String white, black, app, date, fromSquare, toSquare;
     private PGN pgn;
     private BoardModel boardModel = null;
+    /**
+     * Moves of the game with periodic position checkpoints, positions and FENs are rematerialised from it on access
+     */
     @Getter
-    private Stack<BoardModel> boardModelStack;
-    @Getter
-    private Stack<String> FENs;
+    private GameHistory history;
     @Setter
     private Player playAs;
-    private HashMap<String, HashSet<Integer>> allLegalMoves;
+    /**
+     * Legal moves of the player to play
+     */
+    private final MoveList legalMoves = new MoveList();
+    /**
+     * Buffer the SAN and UCI of each move are written to
+     */
+    private final char[] notation = new char[Notation.MAX_SAN_LENGTH];
     @Getter
-    private HashSet<String> allLegalMovesUCI;
+    private UpdateMode updateMode = UpdateMode.EAGER;
+    /**
+     * Position changed since the legal moves (or check status and termination) were last computed
+     */
+    private boolean legalMovesStale, positionStale;
     private Thread randomMoveThread;
     private boolean whiteToPlay, onePlayer, infinitePlay;
-    private int count, halfMove, fullMove;
+    private int count;
 
     /**
      * GameLogic for normal game setup
@@ -118,14 +136,12 @@ public class GameLogic implements GameLogicInterface {
 
         if (boardModel == null || pgn == null) {
             boardModel = new BoardModel(true);
-            boardModelStack = new Stack<>();
-            FENs = new Stack<>();
-            boardModelStack.push(boardModel);
-            FENs.push(boardModel.toFEN());
+            history = new GameHistory(PackedPosition.of(boardModel));
             pgn = new PGN(app, white, black, date, true);
         }
 
         gameState = ChessState.ONGOING;
+        termination = null;
         whiteToPlay = pgn.isWhiteToPlay();
         pgn.setWhiteBlack(white, black);        //Set the white and the black players' names
     }
@@ -133,28 +149,25 @@ public class GameLogic implements GameLogicInterface {
     public void reset() {
         stopInfinitePlay();
         gameTerminated = false;
+        gameState = ChessState.ONGOING;
+        termination = null;
         whiteToPlay = true;
-        halfMove = 0;
-        fullMove = 1;
 
         if (FEN.isEmpty()) {
             boardModel = new BoardModel(true);
             pgn = new PGN(app, white, black, date, true);
         } else {
 //            long start = System.nanoTime();
-            boardModel = BoardModel.parseFEN(FEN);
-
-            Matcher player = Regexes.activePlayerPattern.matcher(FEN);
-            if (player.find()) whiteToPlay = player.group().trim().equals("w");
+            boardModel = BoardModel.fromFEN(FEN);
+            whiteToPlay = boardModel.isWhiteToPlay();
 //            long end = System.nanoTime();
             // Log.printTime(TAG, "parsing FEN", end - start, FEN.length());
             pgn = new PGN(app, white, black, date, whiteToPlay, FEN);
         }
-        boardModelStack = new Stack<>();
-        FENs = new Stack<>();
+        history = new GameHistory(PackedPosition.of(boardModel));
         fromSquare = "";
         toSquare = "";
-        pushToStack();
+        updateAll();
     }
 
     public void playRandomMove() {
@@ -176,49 +189,13 @@ public class GameLogic implements GameLogicInterface {
         move(fromRow, fromCol, toRow, toCol);
     }
 
+    /**
+     * @return Random legal move in UCI format, <code>null</code> if there are no legal moves
+     */
     public String getRandomMove() {
-        String move = null;
-        try {
-            Set<String> squares = allLegalMoves.keySet();
-            ArrayList<String> array = new ArrayList<>(squares);
-            Collections.shuffle(array);
-
-            // Pick a random piece square
-            String square = array.get(random.nextInt(array.size()));
-            if (square != null) {
-                HashSet<Integer> moves = allLegalMoves.get(square);
-
-                // If piece has no legal moves pick another piece
-                if (moves == null || moves.isEmpty()) for (String p : squares) {
-                    moves = allLegalMoves.get(p);
-                    if (moves != null && !moves.isEmpty()) {
-                        square = p;
-                        break;
-                    }
-                }
-
-                // If legal moves found for a piece
-                if (moves != null && !moves.isEmpty()) {
-                    Piece piece = pieceAt(toRow(square), toCol(square));
-                    ArrayList<Integer> legalMoves = new ArrayList<>(moves);
-                    int position = legalMoves.get(random.nextInt(legalMoves.size()));
-                    int fromRow = piece.getRow(), fromCol = piece.getCol(), row = position / 8, col = position % 8;
-                    move = MiscMethods.toNotation(fromRow, fromCol) + MiscMethods.toNotation(row, col);
-
-                    // If move is promotion promote to random rank
-                    if (piece.getRank() == Rank.PAWN) {
-                        Pawn pawn = (Pawn) piece;
-                        Rank[] ranks = {Rank.QUEEN, Rank.ROOK, Rank.BISHOP, Rank.KNIGHT};
-                        if (pawn.canPromote() && promote(pawn, row, col, fromRow, fromCol, ranks[random.nextInt(ranks.length)])) {
-                            return move + ranks[random.nextInt(ranks.length)].getLetter();
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "run: Exception occurred!", e);
-        }
-        return move;
+        MoveList legalMoves = getLegalMoves();
+        if (legalMoves.isEmpty()) return null;
+        return Move.toUCI(legalMoves.get(random.nextInt(legalMoves.size())));
     }
 
     public void toggleInfinitePlay() {
@@ -246,45 +223,48 @@ public class GameLogic implements GameLogicInterface {
 
     @Override
     public boolean move(int fromRow, int fromCol, int toRow, int toCol) {
-        if (gameTerminated) return false;
+        if (isGameTerminated()) return false;
 
         Piece movingPiece = pieceAt(fromRow, fromCol);
         if (movingPiece == null) return false;
 
         // Check if the piece belongs to the active player
-        if (isPieceToPlay(movingPiece) && allLegalMoves.get(movingPiece.getSquare()) != null) {
-            HashSet<Integer> pieceLegalMoves = allLegalMoves.get(movingPiece.getSquare());
-            if (pieceLegalMoves != null && !pieceLegalMoves.contains(toCol + toRow * 8))
-                return false; // Return false if the move is an illegal move
-        }
+        if (isPieceToPlay(movingPiece) && !getLegalMoves().contains(fromRow * 8 + fromCol, toRow * 8 + toCol))
+            return false; // Return false if the move is an illegal move
         boolean result = makeMove(movingPiece, fromRow, fromCol, toRow, toCol);
         if (result) {
-            if (movingPiece.getRank() == Rank.PAWN || pgn.getMoves().getLast().contains(PGN.CAPTURE)) halfMove = 0;
-            else halfMove = boardModel.getHalfMove() + 1;
-
-            if (!whiteToPlay) fullMove = boardModel.getFullMove() + 1;
-
-            boardModel.fromSquare = toNotation(fromRow, fromCol);
-            boardModel.toSquare = toNotation(toRow, toCol);
-
-            boardModel.enPassantPawn = null;
-            boardModel.enPassantSquare = "";
-
-            if (movingPiece.getRank() == Rank.PAWN && Math.abs(fromRow - toRow) == 2) {
-                Pawn enPassantPawn = (Pawn) movingPiece;
-                boardModel.enPassantPawn = enPassantPawn;
-                boardModel.enPassantSquare = toNotation(enPassantPawn.getRow() - enPassantPawn.direction, enPassantPawn.getCol());
-                //Log.d(TAG, "move: EnPassantPawn: " + boardModel.enPassantPawn.getPosition() + " EnPassantSquare: " + boardModel.enPassantSquare);
-            }
             fromSquare = toNotation(fromRow, fromCol);
             toSquare = toNotation(toRow, toCol);
             toggleGameState();
-            pushToStack();
-            if (playerToPlay().isInCheck()) printLegalMoves();
+            pushToStack(Move.encode(fromRow * 8 + fromCol, toRow * 8 + toCol, 0, 0));
+            if (updateMode == UpdateMode.EAGER && inCheck) printLegalMoves();
         }
         return result;
     }
 
+    /**
+     * Plays a move taken from {@link GameLogic#getLegalMoves()} of the current position, the move is not validated again<br>
+     * Used by the PGN parser, which has already resolved the SAN move against the legal moves
+     *
+     * @param move Packed legal move
+     * @return <code>true|false</code> - Move was played, <code>false</code> if the game is terminated
+     */
+    public boolean playLegalMove(int move) {
+        if (isGameTerminated()) return false;
+        int from = Move.from(move), to = Move.to(move);
+        Rank promotion = Move.promotion(move);
+        String sanMove = new String(notation, 0, Notation.writeSAN(boardModel, getLegalMoves(), move, notation, 0));
+        String uciMove = new String(notation, 0, Notation.writeUCI(move, notation, 0));
+        boardModel.playMove(from, to, promotion);
+        addMove(sanMove, uciMove);
+        fromSquare = Notation.square(from);
+        toSquare = Notation.square(to);
+        toggleGameState();
+        pushToStack(Move.encode(from, to, promotion == null ? 0 : promotion.ordinal(), 0));
+        if (updateMode == UpdateMode.EAGER && inCheck) printLegalMoves();
+        return true;
+    }
+
     /**
      * Checks for move validity and performs move
      *
@@ -313,9 +293,8 @@ public class GameLogic implements GameLogicInterface {
                     return false;
                 }
             }
-            String sanMove = getSANMove(movingPiece, fromRow, fromCol, toRow, toCol, PGN.CAPTURE, null);
-            movingPiece.moveTo(toRow, toCol);
-            capturePiece(toPiece);
+            String sanMove = getSANMove(fromRow, fromCol, toRow, toCol, null);
+            playMove(fromRow, fromCol, toRow, toCol, null);
             addMove(sanMove, uciMove);
 //            addToPGN(movingPiece, PGN.CAPTURE, fromRow, fromCol);
             return true;
@@ -323,16 +302,16 @@ public class GameLogic implements GameLogicInterface {
         if (toPiece == null) {
             if (movingPiece.getRank() == Rank.KING) {
                 King king = (King) movingPiece;
-                if (!king.isCastled() && king.canMoveTo(this, toRow, toCol)) {
+                if (king.canMoveTo(this, toRow, toCol)) {
                     if (toCol - fromCol == -2 && king.canLongCastle(this)) {
-                        king.longCastle(this);
+                        playMove(fromRow, fromCol, toRow, toCol, null);
                         String sanMove = PGN.LONG_CASTLE;
                         addMove(sanMove, uciMove);
 //                        addToPGN(movingPiece, PGN.LONG_CASTLE, fromRow, fromCol);
                         return true;
                     }
                     if (toCol - fromCol == 2 && king.canShortCastle(this)) {
-                        king.shortCastle(this);
+                        playMove(fromRow, fromCol, toRow, toCol, null);
                         String sanMove = PGN.SHORT_CASTLE;
                         addMove(sanMove, uciMove);
 //                        addToPGN(movingPiece, PGN.SHORT_CASTLE, fromRow, fromCol);
@@ -344,23 +323,22 @@ public class GameLogic implements GameLogicInterface {
                 if (movingPiece.getRank() == Rank.PAWN) {
                     Pawn pawn = (Pawn) movingPiece;
                     if (pawn.canCaptureEnPassant(this))
-                        if (getBoardModel().enPassantSquare.equals(toNotation(toRow, toCol)))
-                            if (capturePiece(pieceAt(toRow - pawn.direction, toCol))) {
-                                //Log.d(TAG, "makeMove: EnPassant Capture");
-                                String sanMove = getSANMove(pawn, fromRow, fromCol, toRow, toCol, PGN.CAPTURE, null);
-                                movingPiece.moveTo(toRow, toCol);
-                                addMove(sanMove, uciMove);
-//                                addToPGN(pawn, PGN.CAPTURE, fromRow, fromCol);
-                                return true;
-                            }
+                        if (getBoardModel().enPassantSquare.equals(toNotation(toRow, toCol))) {
+                            //Log.d(TAG, "makeMove: EnPassant Capture");
+                            String sanMove = getSANMove(fromRow, fromCol, toRow, toCol, null);
+                            playMove(fromRow, fromCol, toRow, toCol, null);
+                            addMove(sanMove, uciMove);
+//                            addToPGN(pawn, PGN.CAPTURE, fromRow, fromCol);
+                            return true;
+                        }
                     if (pawn.canPromote()) {
                         promote(pawn, toRow, toCol, fromRow, fromCol);
                         //Log.d(TAG, "makeMove: Pawn promotion");
                         return false;
                     }
                 }
-                String sanMove = getSANMove(movingPiece, fromRow, fromCol, toRow, toCol, "", null);
-                movingPiece.moveTo(toRow, toCol);
+                String sanMove = getSANMove(fromRow, fromCol, toRow, toCol, null);
+                playMove(fromRow, fromCol, toRow, toCol, null);
                 addMove(sanMove, uciMove);
 //                addToPGN(movingPiece, "", fromRow, fromCol);
                 return true;
@@ -370,52 +348,30 @@ public class GameLogic implements GameLogicInterface {
         return false;   //Default return false
     }
 
+    /**
+     * Plays the move on the <code>BoardModel</code>
+     */
+    private void playMove(int fromRow, int fromCol, int toRow, int toCol, Rank promotionRank) {
+        boardModel.playMove(fromRow * 8 + fromCol, toRow * 8 + toCol, promotionRank);
+    }
+
     public void saveGame() {
 //        if (gameTerminated || loadingPGN) return;
-//        dataManager.saveData(boardModel, pgn, boardModelStack, FENs);
+//        dataManager.saveData(boardModel, pgn, history);
     }
 
-    private String getSANMove(Piece piece, int fromRow, int fromCol, int toRow, int toCol, String capture, Rank promotionRank) {
-        LinkedHashSet<Piece> pieces = boardModel.pieces;
-        String pieceChar;
-        String startCol;
-        if (piece.getRank() == Rank.PAWN) {
-            pieceChar = "";
-            if (!capture.isEmpty()) startCol = java.lang.String.valueOf(toColChar(fromCol));
-            else startCol = "";
-        } else {
-            pieceChar = String.valueOf(piece.getRank().getLetter());
-            startCol = "";
-        }
-        String startRow = "";
-        String promotion = promotionRank == null ? "" : "=" + promotionRank.getLetter();
-
-        for (Piece tempPiece : pieces) {
-            if (!startRow.isEmpty() && !startCol.isEmpty()) break;
-            if (tempPiece.isCaptured() || tempPiece == piece) continue;
-            if (tempPiece.getPlayer() == piece.getPlayer() && tempPiece.getRank() == piece.getRank()) {
-                HashSet<Integer> tempPieceMoves = allLegalMoves.get(tempPiece.getSquare());
-                if (tempPieceMoves != null && tempPieceMoves.contains(toRow * 8 + toCol))
-                    if (piece.getRank() == Rank.KNIGHT) {
-                        if (startCol.isEmpty() && piece.getCol() != tempPiece.getCol()) {
-                            startCol = String.valueOf(toColChar(fromCol));
-                            continue;
-                        }
-                        if (startRow.isEmpty() && piece.getRow() != tempPiece.getRow() && piece.getCol() == tempPiece.getCol())
-                            startRow = String.valueOf(fromRow + 1);
-                    } else {
-                        if (startCol.isEmpty() && piece.getRow() == tempPiece.getRow())
-                            startCol = String.valueOf(toColChar(fromCol));
-                        if (startRow.isEmpty() && piece.getCol() == tempPiece.getCol())
-                            startRow = String.valueOf(fromRow + 1);
-                    }
-            }
-        }
-        return String.format("%s%s%s%s%s%s", pieceChar, startCol, startRow, capture, toNotation(toRow, toCol), promotion);
+    /**
+     * @return Legal move in SAN (without a check suffix), written from the packed legal move list
+     */
+    private String getSANMove(int fromRow, int fromCol, int toRow, int toCol, Rank promotionRank) {
+        MoveList legalMoves = getLegalMoves();
+        int move = legalMoves.get(legalMoves.indexOf(fromRow * 8 + fromCol, toRow * 8 + toCol, promotionRank));
+        return new String(notation, 0, Notation.writeSAN(boardModel, legalMoves, move, notation, 0));
     }
 
     private String getUCIMove(int fromRow, int fromCol, int toRow, int toCol, Rank promotionRank) {
-        return String.format("%s%s%s", toNotation(fromRow, fromCol), toNotation(toRow, toCol), promotionRank == null ? "" : Character.toLowerCase(promotionRank.getLetter()));
+        int move = Move.encode(fromRow * 8 + fromCol, toRow * 8 + toCol, promotionRank == null ? 0 : promotionRank.ordinal(), 0);
+        return new String(notation, 0, Notation.writeUCI(move, notation, 0));
     }
 
     private void addMove(String sanMove, String uciMove) {
@@ -468,27 +424,8 @@ public class GameLogic implements GameLogicInterface {
             if (c == 'X') return;
         } while (rank == null);
 
-        Piece tempPiece = pieceAt(row, col);
-        String sanMove = getSANMove(pawn, fromRow, fromCol, row, col, tempPiece == null ? "" : PGN.CAPTURE, rank);
-        String uciMove = getUCIMove(fromRow, fromCol, row, col, rank);
-        Piece promotedPiece = boardModel.promote(pawn, rank, row, col);
-        if (tempPiece != null) {
-            if (tempPiece.getPlayer() != promotedPiece.getPlayer()) {
-                capturePiece(tempPiece);
-//                    addToPGN(promotedPiece, PGN.PROMOTE + PGN.CAPTURE, fromRow, fromCol);
-            }
-        }
-//            else addToPGN(promotedPiece, PGN.PROMOTE, fromRow, fromCol);
-        addMove(sanMove, uciMove);
+        promote(pawn, row, col, fromRow, fromCol, rank);
         // Log.v(TAG, String.format("promote: Promoted to %s, %s->%s", rank, toNotation(fromRow, fromCol), toNotation(row, col)));
-        fromSquare = toNotation(fromRow, fromCol);
-        toSquare = toNotation(row, col);
-
-        halfMove = 0;
-        if (!pawn.isWhite()) fullMove = boardModel.getFullMove() + 1;
-
-        toggleGameState();
-        pushToStack();
 //        });
     }
 
@@ -504,61 +441,98 @@ public class GameLogic implements GameLogicInterface {
      * @return <code>true|false</code> - Promotion result
      */
     public boolean promote(Pawn pawn, int row, int col, int fromRow, int fromCol, Rank rank) {
-        boolean promoted = false;
-        Piece tempPiece = pieceAt(row, col);
-        String sanMove = getSANMove(pawn, fromRow, fromCol, row, col, tempPiece == null ? "" : PGN.CAPTURE, rank);
-        String uciMove = getUCIMove(fromRow, fromCol, row, col, rank);
-        Piece promotedPiece = boardModel.promote(pawn, rank, row, col);
-        if (tempPiece != null) {
-            if (tempPiece.getPlayer() != promotedPiece.getPlayer()) {
-                capturePiece(tempPiece);
-//                addToPGN(promotedPiece, PGN.PROMOTE + PGN.CAPTURE, fromRow, fromCol);
-                promoted = true;
-            }
-        } else {
-//            addToPGN(promotedPiece, PGN.PROMOTE, fromRow, fromCol);
-            promoted = true;
-        }
+        if (isGameTerminated() || !isPieceToPlay(pawn) || rank == null || rank == Rank.KING || rank == Rank.PAWN) return false;
+        boolean promoted = getLegalMoves().contains(fromRow * 8 + fromCol, row * 8 + col);
         if (promoted) {
-            halfMove = 0;
-            if (!pawn.isWhite()) fullMove = boardModel.getFullMove() + 1;
+            Piece tempPiece = pieceAt(row, col);
+            String sanMove = getSANMove(fromRow, fromCol, row, col, rank);
+            String uciMove = getUCIMove(fromRow, fromCol, row, col, rank);
+            playMove(fromRow, fromCol, row, col, rank);
             addMove(sanMove, uciMove);
             fromSquare = toNotation(fromRow, fromCol);
             toSquare = toNotation(row, col);
             toggleGameState();
-            pushToStack();
+            pushToStack(Move.encode(fromRow * 8 + fromCol, row * 8 + col, rank.ordinal(), 0));
         }
         return promoted;
     }
 
     public boolean isGameTerminated() {
+        updatePosition();
         return gameTerminated;
     }
 
+    /**
+     * @return State of the game, always {@link ChessState#ONGOING} while moves are replayed
+     */
+    public ChessState getGameState() {
+        updatePosition();
+        return gameState;
+    }
+
+    /**
+     * @return Termination message, <code>null</code> if the game is not terminated
+     */
+    public String getTermination() {
+        updatePosition();
+        return termination;
+    }
+
+    /**
+     * @return <code>true|false</code> - Player to play is in check
+     */
+    public boolean isInCheck() {
+        if (updateMode == UpdateMode.REPLAY) return boardModel.isKingAttacked(playerToPlay());
+        updatePosition();
+        return inCheck;
+    }
+
+    /**
+     * @return View of the FENs of all the positions of the game, written on access
+     */
+    public List<String> getFENs() {
+        return history.FENs();
+    }
+
+    /**
+     * @return Legal moves of the player to play
+     */
+    public MoveList getLegalMoves() {
+        if (legalMovesStale) computeLegalMoves();
+        return legalMoves;
+    }
+
+    /**
+     * Sets when the legal moves, check status and termination are computed<br>
+     * Switching to {@link UpdateMode#EAGER} computes them for the current position immediately
+     */
+    public void setUpdateMode(UpdateMode updateMode) {
+        this.updateMode = updateMode;
+        if (updateMode == UpdateMode.EAGER) updatePosition();
+    }
+
     private void toggleGameState() {
         whiteToPlay = !whiteToPlay;
         pgn.setWhiteToPlay(whiteToPlay);
     }
 
-    private void pushToStack() {
-        boardModelStack.push(boardModel.clone());
-        FENs.push(boardModel.toFEN());
-        boardModel.setMoveClocks(halfMove, fullMove);
+    private void pushToStack(int move) {
         boardModel.fromSquare = fromSquare;
         boardModel.toSquare = toSquare;
-        boardModel.setWhiteToPlay(whiteToPlay);
+        history.add(move, boardModel);
         fromSquare = "";
         toSquare = "";
         updateAll();
     }
 
     private void undoLastMove() {
-        if (gameTerminated) return;
+        if (isGameTerminated()) return;
         pgn.removeLast();
-        if (boardModelStack.size() > 1) {
-            boardModelStack.pop();
-            FENs.pop();
-            boardModel = boardModelStack.peek().clone();
+        if (history.plies() > 0) {
+            history.removeLast();
+            BoardModel previous = history.boardModelAt(history.plies());
+            previous.copyHistory(boardModel, Math.max(0, boardModel.getPly() - 1));
+            boardModel = previous;
 //            if (boardModel.enPassantPawn != null)
 //                Log.d(TAG, "undoLastMove: EnPassantPawn: " + boardModel.enPassantPawn.getPosition() + " EnPassantSquare: " + boardModel.enPassantSquare);
             toggleGameState();
@@ -573,18 +547,30 @@ public class GameLogic implements GameLogicInterface {
         saveGame();
 
         count = 0;
+        legalMovesStale = positionStale = true;
+        if (updateMode == UpdateMode.EAGER) updatePosition();
+//        Log.d(TAG, "updateAll: Updated game");
+        if (gameUI != null) gameUI.updateViews();
+//      The termination is only checked here when the engine plays next, otherwise the next access computes it
+        if (updateMode != UpdateMode.REPLAY && onePlayer && playerToPlay() == playAs && !isGameTerminated()) {
+            randomMoveThread = null;
+            playRandomMove();
+        }
+    }
+
+    /**
+     * Computes the legal moves, check status and termination of the position if it changed since they were last computed<br>
+     * Nothing is computed while moves are replayed
+     */
+    private void updatePosition() {
+        if (!positionStale || updateMode == UpdateMode.REPLAY) return;
+        positionStale = false;
 //        long start = System.nanoTime();
-        computeLegalMoves();
+        getLegalMoves();
 //        long end = System.nanoTime();
         isChecked();
 //        printTime("updating LegalMoves", end - start);
         checkGameTermination();
-//        Log.d(TAG, "updateAll: Updated game");
-        if (gameUI != null) gameUI.updateViews();
-        if (!gameTerminated) {
-            randomMoveThread = null;
-            if (onePlayer && playerToPlay() == playAs) playRandomMove();
-        }
     }
 
     /**
@@ -613,9 +599,7 @@ public class GameLogic implements GameLogicInterface {
 //        }
         if (noLegalMoves()) {
             //Log.d(TAG, "checkGameTermination: No Legal Moves for: " + playerToPlay());
-            isChecked();
-
-            if (!playerToPlay().isInCheck()) {
+            if (!inCheck) {
                 termination = "Draw by Stalemate";
                 terminationState = ChessState.STALEMATE;
             } else {
@@ -629,11 +613,8 @@ public class GameLogic implements GameLogicInterface {
     }
 
     private boolean noLegalMoves() {
-        Set<Map.Entry<String, HashSet<Integer>>> legalMoves = allLegalMoves.entrySet();
-        for (Map.Entry<String, HashSet<Integer>> entry : legalMoves)
-            if (!entry.getValue().isEmpty()) return false;
         // Log.d(TAG, "noLegalMoves: No legal moves for " + playerToPlay());
-        return true;
+        return legalMoves.isEmpty();
     }
 
     /**
@@ -693,113 +674,39 @@ public class GameLogic implements GameLogicInterface {
     }
 
     private boolean drawByRepetition() {
-        int i = 0, j, l = FENs.size();
-        String[] positions = new String[l];
-        for (String FEN : FENs) positions[l - i++ - 1] = FEN;
-
-        String lastPosition = positions[l - 1];
-        for (i = 0; i < l - 2; i++)
-            if (lastPosition.equals(positions[i])) {
-                //Log.d(TAG, String.format("drawByRepetition: One repetition found:\n%d: %s\n%d: %s", i / 2 + 1, positions[i], (l - 1) / 2 + 1, lastPosition));
-                for (j = i + 1; j < l - 1; j++)
-                    if (positions[i].equals(positions[j])) {
-                        //Log.d(TAG, "Draw by repetition");
-                        //Log.d(TAG, String.format("Position : %d, %d & %d", i / 2 + 1, j / 2 + 1, (l - 1) / 2 + 1));
-                        //Log.d(TAG, String.format("Repeated moves FEN:\n%d - %s\n%d - %s\n%d - %s", i / 2 + 1, positions[i], j / 2 + 1, positions[j], (l - 1) / 2 + 1, lastPosition));
-                        return true;
-                    }
-                positions[i] = "";
-            }
-        return false;
+        return boardModel.getRepetitionCount() >= 2;
     }
 
     /**
-     * Checks if any of the player is checked
+     * Updates the check status of the player to play
      */
     private void isChecked() {
-        boolean isChecked = false;
-        King whiteKing = boardModel.getWhiteKing();
-        King blackKing = boardModel.getBlackKing();
-        Player.WHITE.setInCheck(false);
-        Player.BLACK.setInCheck(false);
-        if (whiteKing.isChecked(this)) {
-            isChecked = true;
-            Player.WHITE.setInCheck(true);
-            //Log.d(TAG, "isChecked: White King checked");
-        }
-        if (blackKing.isChecked(this)) {
-            isChecked = true;
-            Player.BLACK.setInCheck(true);
-            //Log.d(TAG, "isChecked: Black King checked");
-        }
+        inCheck = boardModel.isKingAttacked(playerToPlay());
     }
 
     /**
      * Prints all legal moves for the player in check
      */
     private void printLegalMoves() {
-        if (allLegalMoves == null) return;
-        Set<Map.Entry<String, HashSet<Integer>>> pieces = allLegalMoves.entrySet();
-        for (Map.Entry<String, HashSet<Integer>> entry : pieces) {
-            String square = entry.getKey();
-            HashSet<Integer> moves = entry.getValue();
-            if (!moves.isEmpty()) {
-                StringBuilder allMoves = new StringBuilder();
-                for (int move : moves)
-                    allMoves.append(toNotation(move)).append(" ");
-                Log.d(TAG, "printLegalMoves: Legal Moves for " + square + ": " + allMoves);
-            }
-//            else //System.out.println(TAG+ "printLegalMoves: No legal moves for " + square);
-        }
+        StringBuilder allMoves = new StringBuilder();
+        MoveList legalMoves = getLegalMoves();
+        for (int i = 0; i < legalMoves.size(); i++) allMoves.append(Move.toUCI(legalMoves.get(i))).append(" ");
+        Log.d(TAG, "printLegalMoves: Legal Moves: " + allMoves);
     }
 
     /**
-     * Computes and updates all legal moves for the player to play
+     * @return Whether the legal moves, check status and termination of the current position are computed
      */
-    private void computeLegalMoves() {
-        allLegalMoves = new HashMap<>();
-        allLegalMovesUCI = new HashSet<>();
-        LinkedHashSet<Piece> pieces = boardModel.pieces;
-        for (Piece piece : pieces) {
-            if (!isPieceToPlay(piece) || piece.isCaptured()) continue;
-
-            HashSet<Integer> possibleMoves = piece.getPossibleMoves(this), illegalMoves = new HashSet<>();
-            for (int move : possibleMoves) {
-                if (isIllegalMove(piece, move)) illegalMoves.add(move);
-                count++;
-            }
-
-            possibleMoves.removeAll(illegalMoves);
-            allLegalMoves.put(piece.getSquare(), possibleMoves);
-
-            for (int position : possibleMoves) {
-                String move = piece.getSquare() + toNotation(position);
-                if (piece.getRank() == Rank.PAWN && ((Pawn) piece).canPromote()) {
-                    allLegalMovesUCI.add(move + 'q');
-                    allLegalMovesUCI.add(move + 'r');
-                    allLegalMovesUCI.add(move + 'n');
-                    allLegalMovesUCI.add(move + 'b');
-                } else allLegalMovesUCI.add(move);
-            }
-        }
+    boolean isPositionComputed() {
+        return !legalMovesStale && !positionStale;
     }
 
     /**
-     * Finds if a move is illegal for the given piece
-     *
-     * @param piece <code>Piece</code> to move
-     * @param move  Move for the piece
-     * @return <code>True|False</code>
+     * Computes and updates all legal moves for the player to play
      */
-    private boolean isIllegalMove(Piece piece, int move) {
-        TempGameLogicInterface tempBoardInterface = new TempGameLogicInterface();
-        tempBoardInterface.tempBoardModel = boardModel.clone();
-        boolean isChecked;
-        int row = piece.getRow(), col = piece.getCol(), toRow = toRow(move), toCol = toCol(move);
-        tempBoardInterface.move(row, col, toRow, toCol);
-        if (piece.isWhite()) isChecked = tempBoardInterface.tempBoardModel.getWhiteKing().isChecked(tempBoardInterface);
-        else isChecked = tempBoardInterface.tempBoardModel.getBlackKing().isChecked(tempBoardInterface);
-        return isChecked;
+    private void computeLegalMoves() {
+        count = MoveGenerator.generate(boardModel, legalMoves);
+        legalMovesStale = false;
     }
 
     /**
@@ -808,11 +715,11 @@ public class GameLogic implements GameLogicInterface {
      * @return <code> * | 0-1 | 1-0 | 1/2-1/2 </code>
      */
     public String getResult() {
-        return switch (gameState) {
+        return switch (getGameState()) {
             case ONGOING -> PGN.RESULT_ONGOING;
             case RESIGN, TIMEOUT ->
                     termination.contains(Player.WHITE.getName()) ? PGN.RESULT_WHITE_WON : PGN.RESULT_BLACK_WON;
-            case CHECKMATE -> Player.WHITE.isInCheck() ? PGN.RESULT_BLACK_WON : PGN.RESULT_WHITE_WON;
+            case CHECKMATE -> whiteToPlay ? PGN.RESULT_BLACK_WON : PGN.RESULT_WHITE_WON;
             case STALEMATE, DRAW -> PGN.RESULT_DRAW;
         };
     }
@@ -855,11 +762,32 @@ public class GameLogic implements GameLogicInterface {
         return boardModel;
     }
 
+    /**
+     * Builds a view of the legal moves, keyed by the square of each piece of the player to play
+     */
     @Override
     public HashMap<String, HashSet<Integer>> getAllLegalMoves() {
+        MoveList legalMoves = getLegalMoves();
+        HashMap<String, HashSet<Integer>> allLegalMoves = new HashMap<>();
+        for (Piece piece : boardModel.pieces)
+            if (isPieceToPlay(piece) && !piece.isCaptured()) allLegalMoves.put(piece.getSquare(), new HashSet<>());
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            allLegalMoves.get(toNotation(Move.from(move))).add(Move.to(move));
+        }
         return allLegalMoves;
     }
 
+    /**
+     * Builds the set of legal moves in UCI format
+     */
+    public HashSet<String> getAllLegalMovesUCI() {
+        MoveList legalMoves = getLegalMoves();
+        HashSet<String> allLegalMovesUCI = new HashSet<>();
+        for (int i = 0; i < legalMoves.size(); i++) allLegalMovesUCI.add(Move.toUCI(legalMoves.get(i)));
+        return allLegalMovesUCI;
+    }
+
     public PGN getPGN() {
         return pgn;
     }
@@ -907,66 +835,6 @@ public class GameLogic implements GameLogicInterface {
     }
 
     public void playRandomGame() {
-        while (!gameTerminated) playRandomMove();
-    }
-
-    /**
-     * Temporary GameLogicInterface for computing Legal Moves
-     */
-    static class TempGameLogicInterface implements GameLogicInterface {
-        private static final String TAG = "TempGameLogicInterface";
-        private BoardModel tempBoardModel;
-
-        @Override
-        public Piece pieceAt(int row, int col) {
-            return tempBoardModel.pieceAt(row, col);
-        }
-
-        @Override
-        public boolean move(int fromRow, int fromCol, int toRow, int toCol) {
-            Piece opponentPiece = pieceAt(toRow, toCol), movingPiece = pieceAt(fromRow, fromCol);
-            if (movingPiece != null) movingPiece.moveTo(toRow, toCol);
-            else Log.d(TAG, " move: Error! movingPiece is null");
-            if (opponentPiece != null) tempBoardModel.capturePiece(opponentPiece);
-            return true;
-        }
-
-        @Override
-        public boolean capturePiece(Piece piece) {
-            return false;
-        }
-
-        @Override
-        public void promote(Pawn pawn, int row, int col, int fromRow, int fromCol) {
-        }
-
-        @Override
-        public void terminateByTimeOut(Player player) {
-        }
-
-        @Override
-        public BoardModel getBoardModel() {
-            return tempBoardModel;
-        }
-
-        @Override
-        public HashMap<String, HashSet<Integer>> getAllLegalMoves() {
-            return null;
-        }
-
-        @Override
-        public boolean isWhiteToPlay() {
-            return false;
-        }
-
-        @Override
-        public boolean isGameTerminated() {
-            return false;
-        }
-
-        @Override
-        public boolean isPieceToPlay(Piece piece) {
-            return false;
-        }
+        while (!isGameTerminated()) playRandomMove();
     }
 }
@@ -50,7 +50,7 @@ public class Openings {
         }
     }
 
-    public static Openings getInstance() {
+    public static synchronized Openings getInstance() {
         if (openings == null) openings = new Openings();
         return openings;
     }
@@ -1,11 +1,28 @@
 package com.drdedd.chess.game;
 
+import com.drdedd.chess.game.board.GameHistory;
 import com.drdedd.chess.game.pgn.PGN;
 
 import java.io.Serializable;
-import java.util.Stack;
+import java.util.List;
 
-public record ParsedGame(Stack<BoardModel> boardModelStack, Stack<String> FENs, PGN pgn, String eco, String opening,
+/**
+ * Result of parsing a PGN, the positions of the game are kept as a {@link GameHistory} of moves and checkpoints
+ */
+public record ParsedGame(GameHistory history, PGN pgn, String eco, String opening,
                          int lastBookMove) implements Serializable {
 
+    /**
+     * @return View of every position of the game as a new <code>BoardModel</code>, materialised on access
+     */
+    public List<BoardModel> boardModelStack() {
+        return history.boardModels();
+    }
+
+    /**
+     * @return View of the FENs of every position of the game, written on access
+     */
+    public List<String> FENs() {
+        return history.FENs();
+    }
 }
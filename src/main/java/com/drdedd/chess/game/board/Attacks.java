@@ -0,0 +1,202 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.gameData.Player;
+
+/**
+ * Attack sets of each piece type as bitboards<br>
+ * Knight, king and pawn attacks are precomputed per square, sliding attacks are looked up through magic bitboards<br>
+ * All the tables are built once when the class is loaded
+ */
+public class Attacks {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64], KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final Magic[] ROOK_MAGICS = new Magic[64], BISHOP_MAGICS = new Magic[64];
+    private static final long[][] BETWEEN = new long[64][64], LINE = new long[64][64];
+
+    /**
+     * Magic bitboard lookup of a sliding piece on a square<br>
+     * The relevant blockers are multiplied with the magic number, the top bits index the attack table
+     */
+    private record Magic(long mask, long magic, int shift, long[] attacks) {
+        long attacks(long occupied) {
+            return attacks[(int) ((occupied & mask) * magic >>> shift)];
+        }
+    }
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = step(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = step(square, KING_OFFSETS);
+            int row = Bitboards.row(square), col = Bitboards.col(square);
+            for (int player = 0; player < 2; player++) {
+                int attackRow = row + (player == 0 ? 1 : -1);
+                if (attackRow < 0 || attackRow > 7) continue;
+                if (col > 0) PAWN_ATTACKS[player][square] |= Bitboards.bit(Bitboards.square(attackRow, col - 1));
+                if (col < 7) PAWN_ATTACKS[player][square] |= Bitboards.bit(Bitboards.square(attackRow, col + 1));
+            }
+
+            ROOK_MAGICS[square] = findMagic(square, ROOK_DIRECTIONS, 0x9E3779B97F4A7C15L * (square + 1));
+            BISHOP_MAGICS[square] = findMagic(square, BISHOP_DIRECTIONS, 0xD1B54A32D192ED03L * (square + 1));
+        }
+
+        for (int[][] directions : new int[][][]{ROOK_DIRECTIONS, BISHOP_DIRECTIONS})
+            for (int from = 0; from < 64; from++)
+                for (int[] direction : directions) {
+                    long line = slide(from, 0, new int[][]{direction, {-direction[0], -direction[1]}}) | Bitboards.bit(from), between = 0;
+                    for (int i = Bitboards.row(from) + direction[0], j = Bitboards.col(from) + direction[1]; i >= 0 && i <= 7 && j >= 0 && j <= 7; i += direction[0], j += direction[1]) {
+                        int to = Bitboards.square(i, j);
+                        BETWEEN[from][to] = between;
+                        LINE[from][to] = line;
+                        between |= Bitboards.bit(to);
+                    }
+                }
+    }
+
+    /**
+     * @return Squares attacked by a knight on the square
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @return Squares attacked by a king on the square
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return Squares attacked by a pawn of the player on the square
+     */
+    public static long pawnAttacks(Player player, int square) {
+        return PAWN_ATTACKS[player.ordinal()][square];
+    }
+
+    /**
+     * @param occupied Bitboard of all the pieces on the board
+     * @return Squares attacked by a rook on the square, up to and including the first blocker on each ray
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @param occupied Bitboard of all the pieces on the board
+     * @return Squares attacked by a bishop on the square, up to and including the first blocker on each ray
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @param occupied Bitboard of all the pieces on the board
+     * @return Squares attacked by a queen on the square
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return Squares strictly between two squares on the same rank, file or diagonal, <code>0</code> otherwise
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return Full line through two squares on the same rank, file or diagonal, <code>0</code> otherwise
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Searches a magic number which maps every blocker subset of the square to its attack set without a harmful collision<br>
+     * The search is seeded, so the tables are identical on every run
+     */
+    private static Magic findMagic(int square, int[][] directions, long seed) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask), size = 1 << bits, shift = 64 - bits;
+        long[] occupancies = new long[size], references = new long[size];
+        int n = 0;
+        long subset = 0;
+        do {
+            occupancies[n] = subset;
+            references[n++] = slide(square, subset, directions);
+            subset = subset - mask & mask;
+        } while (subset != 0);
+
+        long[] attacks = new long[size];
+        int[] epoch = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            seed = xorshift(seed);
+            long magic = seed;
+            seed = xorshift(seed);
+            magic &= seed;
+            seed = xorshift(seed);
+            magic &= seed;
+            if (Long.bitCount(mask * magic & 0xFF00000000000000L) < 6) continue;
+
+            int i;
+            for (i = 0; i < size; i++) {
+                int index = (int) (occupancies[i] * magic >>> shift);
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    attacks[index] = references[i];
+                } else if (attacks[index] != references[i]) break;
+            }
+            if (i == size) return new Magic(mask, magic, shift, attacks);
+        }
+    }
+
+    private static long xorshift(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+
+    /**
+     * Squares whose occupancy changes the attacks of a slider on the square (board edges are never relevant)
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions)
+            for (int i = Bitboards.row(square) + direction[0], j = Bitboards.col(square) + direction[1]; ; i += direction[0], j += direction[1]) {
+                int nextRow = i + direction[0], nextCol = j + direction[1];
+                if (nextRow < 0 || nextRow > 7 || nextCol < 0 || nextCol > 7) break;
+                mask |= Bitboards.bit(Bitboards.square(i, j));
+            }
+        return mask;
+    }
+
+    private static long step(int square, int[][] offsets) {
+        int row = Bitboards.row(square), col = Bitboards.col(square), newRow, newCol;
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            newRow = row + offset[0];
+            newCol = col + offset[1];
+            if (newRow >= 0 && newRow <= 7 && newCol >= 0 && newCol <= 7)
+                attacks |= Bitboards.bit(Bitboards.square(newRow, newCol));
+        }
+        return attacks;
+    }
+
+    private static long slide(int square, long occupied, int[][] directions) {
+        int row = Bitboards.row(square), col = Bitboards.col(square), i, j;
+        long attacks = 0, bit;
+        for (int[] direction : directions)
+            for (i = row + direction[0], j = col + direction[1]; i >= 0 && i <= 7 && j >= 0 && j <= 7; i += direction[0], j += direction[1]) {
+                bit = Bitboards.bit(Bitboards.square(i, j));
+                attacks |= bit;
+                if ((occupied & bit) != 0) break;
+            }
+        return attacks;
+    }
+}
@@ -0,0 +1,91 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.gameData.Player;
+import com.drdedd.chess.game.gameData.Rank;
+import com.drdedd.chess.game.pieces.Piece;
+
+/**
+ * Square and piece index helpers for the bitboard representation of the board<br>
+ * Squares are numbered <code>row * 8 + col</code> (a1 = 0, h8 = 63), bit <code>n</code> of a bitboard is square <code>n</code>
+ */
+public class Bitboards {
+    /**
+     * Mailbox value of an empty square
+     */
+    public static final byte EMPTY = -1;
+    /**
+     * Number of piece indexes (6 ranks for each player)
+     */
+    public static final int PIECE_TYPES = 12;
+    /**
+     * FEN character of each piece index
+     */
+    public static final String PIECE_CHARS = "KQRBNPkqrbnp";
+    private static final Rank[] RANKS = Rank.values();
+    private static final Player[] PLAYERS = Player.values();
+
+    /**
+     * @return Square index of the given row and column
+     */
+    public static int square(int row, int col) {
+        return row << 3 | col;
+    }
+
+    /**
+     * @return Row number of the square
+     */
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * @return Column number of the square
+     */
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    /**
+     * @return Bitboard with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return Lowest set square of the bitboard (64 if empty)
+     */
+    public static int firstSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * Piece index used by the bitboards and the mailbox
+     *
+     * @return <code>0-5</code> for White pieces, <code>6-11</code> for Black pieces
+     */
+    public static int pieceIndex(Player player, Rank rank) {
+        return player.ordinal() * 6 + rank.ordinal();
+    }
+
+    /**
+     * @see Bitboards#pieceIndex(Player, Rank)
+     */
+    public static int pieceIndex(Piece piece) {
+        return pieceIndex(piece.getPlayer(), piece.getRank());
+    }
+
+    /**
+     * @return <code>Player</code> of the piece index
+     */
+    public static Player player(int pieceIndex) {
+        return PLAYERS[pieceIndex / 6];
+    }
+
+    /**
+     * @return <code>Rank</code> of the piece index
+     */
+    public static Rank rank(int pieceIndex) {
+        return RANKS[pieceIndex % 6];
+    }
+}
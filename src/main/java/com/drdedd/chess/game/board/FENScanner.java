@@ -0,0 +1,228 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.gameData.Player;
+import com.drdedd.chess.game.gameData.Rank;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+import static com.drdedd.chess.game.board.InvalidFENException.Reason.*;
+
+/**
+ * Single pass FEN scanner, validates a FEN character by character and collects the position as primitives<br>
+ * Fields are separated by whitespace, the move clocks are optional (<code>-</code> is read as the default value)
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">More about FEN</a>
+ */
+@Getter
+public class FENScanner {
+    /**
+     * Piece index on each square or {@link Bitboards#EMPTY}
+     */
+    private final byte[] mailbox = new byte[64];
+    private final long[] bitboards = new long[Bitboards.PIECE_TYPES];
+    private Player turn;
+    /**
+     * Castling rights as castling flags of the <code>BoardModel</code>
+     */
+    private int castlingRights;
+    /**
+     * En passant target square or {@link BoardModel#NO_SQUARE}
+     */
+    private int enPassant = BoardModel.NO_SQUARE;
+    private int halfMove, fullMove = 1;
+
+    private final String FEN;
+    private int index;
+
+    private FENScanner(String FEN) {
+        this.FEN = FEN;
+        Arrays.fill(mailbox, Bitboards.EMPTY);
+    }
+
+    /**
+     * Scans and validates the FEN
+     *
+     * @param FEN FEN of the position, surrounding whitespace is ignored
+     * @return Scanned position
+     * @throws InvalidFENException If the FEN is malformed or the position is illegal
+     */
+    public static FENScanner scan(String FEN) {
+        if (FEN == null) throw new InvalidFENException(EMPTY, 0);
+        FENScanner scanner = new FENScanner(FEN);
+        scanner.scan();
+        return scanner;
+    }
+
+    /**
+     * @return <code>true|false</code> - FEN is valid
+     */
+    public static boolean isValid(String FEN) {
+        try {
+            scan(FEN);
+            return true;
+        } catch (InvalidFENException e) {
+            return false;
+        }
+    }
+
+    private void scan() {
+        skipSpaces();
+        if (index == FEN.length()) throw new InvalidFENException(EMPTY, index);
+        scanBoard();
+        field();
+        scanTurn();
+        field();
+        scanCastling();
+        field();
+        scanEnPassant();
+        scanClocks();
+        validatePosition();
+    }
+
+    private void scanBoard() {
+        int row = 7, col = 0;
+        while (index < FEN.length()) {
+            char ch = FEN.charAt(index);
+            if (Character.isWhitespace(ch)) break;
+            if (ch == '/') {
+                if (col != 8) throw new InvalidFENException(RANK_LENGTH, index);
+                if (--row < 0) throw new InvalidFENException(RANK_COUNT, index);
+                col = 0;
+            } else if (ch >= '1' && ch <= '8') {
+                col += ch - '0';
+                if (col > 8) throw new InvalidFENException(RANK_LENGTH, index);
+            } else {
+                int piece = Bitboards.PIECE_CHARS.indexOf(ch);
+                if (piece == -1) throw new InvalidFENException(INVALID_PIECE, index);
+                if (col == 8) throw new InvalidFENException(RANK_LENGTH, index);
+                if (Bitboards.rank(piece) == Rank.PAWN && (row == 0 || row == 7))
+                    throw new InvalidFENException(PAWN_ON_BACK_RANK, index);
+                int square = Bitboards.square(row, col++);
+                mailbox[square] = (byte) piece;
+                bitboards[piece] |= Bitboards.bit(square);
+            }
+            index++;
+        }
+        if (col != 8) throw new InvalidFENException(RANK_LENGTH, index);
+        if (row != 0) throw new InvalidFENException(RANK_COUNT, index);
+    }
+
+    private void scanTurn() {
+        char ch = FEN.charAt(index);
+        if (ch == 'w') turn = Player.WHITE;
+        else if (ch == 'b') turn = Player.BLACK;
+        else throw new InvalidFENException(INVALID_TURN, index);
+        index++;
+    }
+
+    /**
+     * Castling flags must appear in <code>KQkq</code> order without repetition, or a single <code>-</code>
+     */
+    private void scanCastling() {
+        if (FEN.charAt(index) == '-') {
+            index++;
+            return;
+        }
+        int last = -1;
+        while (index < FEN.length() && !Character.isWhitespace(FEN.charAt(index))) {
+            int flag = "KQkq".indexOf(FEN.charAt(index));
+            if (flag <= last) throw new InvalidFENException(INVALID_CASTLING, index);
+            castlingRights |= 1 << flag;
+            last = flag;
+            index++;
+        }
+    }
+
+    /**
+     * En passant square must be behind a pawn of the opponent which could have just moved two squares
+     */
+    private void scanEnPassant() {
+        if (FEN.charAt(index) == '-') {
+            index++;
+            return;
+        }
+        int start = index;
+        if (index + 1 >= FEN.length()) throw new InvalidFENException(INVALID_EN_PASSANT, start);
+        char file = FEN.charAt(index), rank = FEN.charAt(index + 1);
+        index += 2;
+        if (file < 'a' || file > 'h' || rank != (turn == Player.WHITE ? '6' : '3'))
+            throw new InvalidFENException(INVALID_EN_PASSANT, start);
+        enPassant = Bitboards.square(rank - '1', file - 'a');
+        Player opponent = turn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        int pawnSquare = enPassant + (turn == Player.WHITE ? -8 : 8);
+        if (mailbox[pawnSquare] != Bitboards.pieceIndex(opponent, Rank.PAWN) || mailbox[enPassant] != Bitboards.EMPTY)
+            throw new InvalidFENException(INVALID_EN_PASSANT, start);
+    }
+
+    private void scanClocks() {
+        if (index < FEN.length() && !Character.isWhitespace(FEN.charAt(index)))
+            throw new InvalidFENException(TRAILING_CHARACTERS, index);
+        skipSpaces();
+        if (index == FEN.length()) return;
+        halfMove = scanClock(0);
+        skipSpaces();
+        if (index == FEN.length()) return;
+        fullMove = Math.max(1, scanClock(1));
+        skipSpaces();
+        if (index != FEN.length()) throw new InvalidFENException(TRAILING_CHARACTERS, index);
+    }
+
+    /**
+     * @param defaultValue Value of a <code>-</code> clock
+     */
+    private int scanClock(int defaultValue) {
+        int start = index;
+        if (FEN.charAt(index) == '-') {
+            index++;
+            if (index < FEN.length() && !Character.isWhitespace(FEN.charAt(index)))
+                throw new InvalidFENException(INVALID_CLOCK, start);
+            return defaultValue;
+        }
+        int value = 0;
+        while (index < FEN.length() && !Character.isWhitespace(FEN.charAt(index))) {
+            char ch = FEN.charAt(index);
+            if (ch < '0' || ch > '9' || index - start > 5) throw new InvalidFENException(INVALID_CLOCK, index);
+            value = value * 10 + ch - '0';
+            index++;
+        }
+        return value;
+    }
+
+    private void validatePosition() {
+        long whiteKing = bitboards[Bitboards.pieceIndex(Player.WHITE, Rank.KING)], blackKing = bitboards[Bitboards.pieceIndex(Player.BLACK, Rank.KING)];
+        if (Long.bitCount(whiteKing) != 1 || Long.bitCount(blackKing) != 1) throw new InvalidFENException(KING_COUNT, 0);
+        int opponentKing = Bitboards.firstSquare(turn == Player.WHITE ? blackKing : whiteKing);
+        if (isAttacked(opponentKing, turn)) throw new InvalidFENException(OPPONENT_IN_CHECK, 0);
+    }
+
+    /**
+     * Checks whether the square is attacked by any piece of the player
+     */
+    private boolean isAttacked(int square, Player player) {
+        int index = player.ordinal() * 6;
+        long occupied = 0;
+        for (long bitboard : bitboards) occupied |= bitboard;
+        long queens = bitboards[index + Rank.QUEEN.ordinal()];
+        return (Attacks.knightAttacks(square) & bitboards[index + Rank.KNIGHT.ordinal()]) != 0
+                || (Attacks.pawnAttacks(player == Player.WHITE ? Player.BLACK : Player.WHITE, square) & bitboards[index + Rank.PAWN.ordinal()]) != 0
+                || (Attacks.kingAttacks(square) & bitboards[index + Rank.KING.ordinal()]) != 0
+                || (Attacks.rookAttacks(square, occupied) & (bitboards[index + Rank.ROOK.ordinal()] | queens)) != 0
+                || (Attacks.bishopAttacks(square, occupied) & (bitboards[index + Rank.BISHOP.ordinal()] | queens)) != 0;
+    }
+
+    /**
+     * Moves to the start of the next field, fields are separated by whitespace
+     */
+    private void field() {
+        if (index < FEN.length() && !Character.isWhitespace(FEN.charAt(index)))
+            throw new InvalidFENException(TRAILING_CHARACTERS, index);
+        skipSpaces();
+        if (index == FEN.length()) throw new InvalidFENException(MISSING_FIELD, index);
+    }
+
+    private void skipSpaces() {
+        while (index < FEN.length() && Character.isWhitespace(FEN.charAt(index))) index++;
+    }
+}
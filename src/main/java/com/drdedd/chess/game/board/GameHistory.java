@@ -0,0 +1,153 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Move history of a game, stored as packed {@link Move moves} with a {@link PackedPosition} checkpoint every
+ * {@link GameHistory#CHECKPOINT_INTERVAL} plies<br>
+ * A position is rematerialised from the nearest checkpoint at or before it by replaying at most <code>CHECKPOINT_INTERVAL - 1</code> moves<br>
+ * Position index <code>0</code> is the starting position, index <code>n</code> is the position after the <code>n</code>th move
+ */
+public class GameHistory implements Serializable {
+    /**
+     * Number of plies between two checkpoints
+     */
+    public static final int CHECKPOINT_INTERVAL = 16;
+    private int[] moves = new int[64];
+    private PackedPosition[] checkpoints = new PackedPosition[8];
+    private int plies;
+
+    /**
+     * @param start Starting position of the game
+     */
+    public GameHistory(PackedPosition start) {
+        checkpoints[0] = start;
+    }
+
+    /**
+     * Records a move
+     *
+     * @param move       Packed move, the flags are not required
+     * @param boardModel Position after the move, stored when a checkpoint is due
+     */
+    public void add(int move, BoardModel boardModel) {
+        if (plies == moves.length) moves = Arrays.copyOf(moves, plies * 2);
+        moves[plies++] = move;
+        if (plies % CHECKPOINT_INTERVAL == 0) {
+            int checkpoint = plies / CHECKPOINT_INTERVAL;
+            if (checkpoint == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, checkpoint * 2);
+            checkpoints[checkpoint] = PackedPosition.of(boardModel);
+        }
+    }
+
+    /**
+     * Removes the last move, the starting position is never removed
+     */
+    public void removeLast() {
+        if (plies == 0) return;
+        if (plies % CHECKPOINT_INTERVAL == 0) checkpoints[plies / CHECKPOINT_INTERVAL] = null;
+        plies--;
+    }
+
+    /**
+     * @return Number of moves played
+     */
+    public int plies() {
+        return plies;
+    }
+
+    /**
+     * @return Number of positions (moves played + the starting position)
+     */
+    public int size() {
+        return plies + 1;
+    }
+
+    /**
+     * @return Packed move of the ply (0 based)
+     */
+    public int move(int ply) {
+        if (ply < 0 || ply >= plies) throw new IndexOutOfBoundsException(ply);
+        return moves[ply];
+    }
+
+    /**
+     * Rematerialises the position with its <code>Piece</code> views
+     *
+     * @param index Position index
+     * @return New <code>BoardModel</code> of the position, its move history starts at the nearest checkpoint
+     */
+    public BoardModel boardModelAt(int index) {
+        checkIndex(index);
+        BoardModel boardModel = checkpoints[index / CHECKPOINT_INTERVAL].toBoardModel();
+        for (int ply = index - index % CHECKPOINT_INTERVAL; ply < index; ply++)
+            boardModel.playMove(Move.from(moves[ply]), Move.to(moves[ply]), Move.promotion(moves[ply]));
+        return boardModel;
+    }
+
+    /**
+     * @param index Position index
+     * @return FEN of the position
+     */
+    public String FENAt(int index) {
+        checkIndex(index);
+        if (index % CHECKPOINT_INTERVAL == 0) return checkpoints[index / CHECKPOINT_INTERVAL].toFEN();
+        return boardModelAt(index).toFEN();
+    }
+
+    /**
+     * @return View of every position as a new <code>BoardModel</code>, materialised on access
+     */
+    public List<BoardModel> boardModels() {
+        return new AbstractList<>() {
+            @Override
+            public BoardModel get(int index) {
+                return boardModelAt(index);
+            }
+
+            @Override
+            public int size() {
+                return GameHistory.this.size();
+            }
+        };
+    }
+
+    /**
+     * View of the FEN of every position, written on access<br>
+     * The view replays forward from the last position it wrote, so walking it in order makes one move per position<br>
+     * A view is not thread safe, every call returns a new view
+     */
+    public List<String> FENs() {
+        return new AbstractList<>() {
+            private BoardModel cursor;
+            private int cursorIndex = -1;
+
+            @Override
+            public String get(int index) {
+                checkIndex(index);
+                if (cursor == null || index < cursorIndex || index / CHECKPOINT_INTERVAL != cursorIndex / CHECKPOINT_INTERVAL) {
+                    if (index % CHECKPOINT_INTERVAL == 0) return checkpoints[index / CHECKPOINT_INTERVAL].toFEN();
+                    cursorIndex = index - index % CHECKPOINT_INTERVAL;
+                    cursor = checkpoints[index / CHECKPOINT_INTERVAL].toBoardModel();
+                }
+                for (; cursorIndex < index; cursorIndex++)
+                    cursor.makeMove(Move.from(moves[cursorIndex]), Move.to(moves[cursorIndex]), Move.promotion(moves[cursorIndex]));
+                return cursor.toFEN();
+            }
+
+            @Override
+            public int size() {
+                return GameHistory.this.size();
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index > plies) throw new IndexOutOfBoundsException(index);
+    }
+}
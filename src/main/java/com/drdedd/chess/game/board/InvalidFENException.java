@@ -0,0 +1,47 @@
+package com.drdedd.chess.game.board;
+
+import lombok.Getter;
+
+/**
+ * FEN rejected by the {@link FENScanner}, with the reason and the index of the character where it was detected
+ */
+@Getter
+public class InvalidFENException extends RuntimeException {
+    /**
+     * Reasons for rejecting a FEN
+     */
+    public enum Reason {
+        EMPTY("Empty FEN"),
+        MISSING_FIELD("Missing field"),
+        RANK_COUNT("Board must have 8 ranks"),
+        RANK_LENGTH("Rank must have 8 squares"),
+        INVALID_PIECE("Invalid piece character"),
+        KING_COUNT("Each player must have exactly one king"),
+        PAWN_ON_BACK_RANK("Pawn on the first or the last rank"),
+        INVALID_TURN("Player to play must be 'w' or 'b'"),
+        INVALID_CASTLING("Invalid castling availability"),
+        INVALID_EN_PASSANT("Invalid en passant square"),
+        INVALID_CLOCK("Invalid move clock"),
+        OPPONENT_IN_CHECK("Player not to play is in check"),
+        TRAILING_CHARACTERS("Unexpected characters after the last field");
+
+        @Getter
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+    }
+
+    private final Reason reason;
+    /**
+     * Index of the character in the FEN where the error was detected
+     */
+    private final int index;
+
+    public InvalidFENException(Reason reason, int index) {
+        super("%s at index %d".formatted(reason.getMessage(), index));
+        this.reason = reason;
+        this.index = index;
+    }
+}
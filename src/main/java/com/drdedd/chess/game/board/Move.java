@@ -0,0 +1,75 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.gameData.Rank;
+
+/**
+ * Primitive move encoding, a move is packed in an <code>int</code><br>
+ * <code>from</code> (bits 0-5), <code>to</code> (bits 6-11), <code>promotion</code> (bits 12-14, <code>Rank</code> ordinal, 0 if none), flags (bits 15-18)
+ */
+public class Move {
+    /**
+     * Move flags
+     */
+    public static final int CAPTURE = 1, EN_PASSANT = 2, CASTLE = 4, DOUBLE_PUSH = 8;
+    private static final Rank[] RANKS = Rank.values();
+
+    /**
+     * @param promotion <code>Rank</code> ordinal of the promotion, 0 if not a promotion
+     * @param flags     Move flags
+     * @return Packed move
+     */
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | to << 6 | promotion << 12 | flags << 15;
+    }
+
+    /**
+     * @return Starting square of the move
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * @return Destination square of the move
+     */
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    /**
+     * @return Promotion <code>Rank</code> of the move, <code>null</code> if not a promotion
+     */
+    public static Rank promotion(int move) {
+        int promotion = move >>> 12 & 7;
+        return promotion == 0 ? null : RANKS[promotion];
+    }
+
+    /**
+     * @return Flags of the move
+     */
+    public static int flags(int move) {
+        return move >>> 15 & 15;
+    }
+
+    /**
+     * @return <code>true|false</code> - Move captures a piece (including en passant)
+     */
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * @return <code>true|false</code> - Move is a castle
+     */
+    public static boolean isCastle(int move) {
+        return (flags(move) & CASTLE) != 0;
+    }
+
+    /**
+     * @return Move in UCI format (<code>e2e4</code>, <code>e7e8q</code>)
+     */
+    public static String toUCI(int move) {
+        char[] uci = new char[Notation.MAX_UCI_LENGTH];
+        return new String(uci, 0, Notation.writeUCI(move, uci, 0));
+    }
+}
@@ -0,0 +1,134 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.gameData.Player;
+import com.drdedd.chess.game.gameData.Rank;
+
+/**
+ * Legal move generator<br>
+ * Checkers, pinned pieces and the check evasion mask are computed once per position, only legal moves are emitted as packed {@link Move moves}<br>
+ * King moves and castling are tested against the opponent's attack map maintained by the <code>BoardModel</code>
+ */
+public class MoveGenerator {
+    private static final int[] PROMOTIONS = {Rank.QUEEN.ordinal(), Rank.ROOK.ordinal(), Rank.BISHOP.ordinal(), Rank.KNIGHT.ordinal()};
+
+    /**
+     * Generates all the legal moves of the player to play
+     *
+     * @param boardModel Position
+     * @param moves      List to be filled with the legal moves, cleared first
+     * @return Number of legal moves
+     */
+    public static int generate(BoardModel boardModel, MoveList moves) {
+        moves.clear();
+        Player us = boardModel.getTurn(), them = us == Player.WHITE ? Player.BLACK : Player.WHITE;
+        long own = boardModel.getOccupancy(us), enemy = boardModel.getOccupancy(them), occupied = own | enemy;
+        long kingBoard = boardModel.getBitboard(us, Rank.KING);
+        if (kingBoard == 0) return 0;
+        int king = Bitboards.firstSquare(kingBoard);
+
+        long enemyQueens = boardModel.getBitboard(them, Rank.QUEEN);
+        long enemyRooks = boardModel.getBitboard(them, Rank.ROOK) | enemyQueens, enemyBishops = boardModel.getBitboard(them, Rank.BISHOP) | enemyQueens;
+
+        long danger = boardModel.getAttackMap(them), checkers = 0;
+        if ((danger & kingBoard) != 0) {
+            checkers = Attacks.pawnAttacks(us, king) & boardModel.getBitboard(them, Rank.PAWN) | Attacks.knightAttacks(king) & boardModel.getBitboard(them, Rank.KNIGHT)
+                    | Attacks.rookAttacks(king, occupied) & enemyRooks | Attacks.bishopAttacks(king, occupied) & enemyBishops;
+
+            // Sliding checkers also attack the squares behind the king, so that it cannot step back along the checking ray
+            long withoutKing = occupied ^ kingBoard;
+            for (long sliders = checkers & (enemyRooks | enemyBishops); sliders != 0; sliders &= sliders - 1) {
+                int slider = Long.numberOfTrailingZeros(sliders);
+                if ((enemyRooks & Bitboards.bit(slider)) != 0) danger |= Attacks.rookAttacks(slider, withoutKing);
+                if ((enemyBishops & Bitboards.bit(slider)) != 0) danger |= Attacks.bishopAttacks(slider, withoutKing);
+            }
+        }
+
+        addMoves(moves, enemy, king, Attacks.kingAttacks(king) & ~own & ~danger);
+
+        // Double check, only the king can move
+        if (Long.bitCount(checkers) > 1) return moves.size();
+
+        long checkMask = checkers == 0 ? -1L : checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+
+        long pinned = 0;
+        long snipers = Attacks.rookAttacks(king, enemy) & enemyRooks | Attacks.bishopAttacks(king, enemy) & enemyBishops;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1) pinned |= blockers & own;
+        }
+
+        // Knights, pinned knights can never move
+        for (long knights = boardModel.getBitboard(us, Rank.KNIGHT) & ~pinned; knights != 0; knights &= knights - 1) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(moves, enemy, from, Attacks.knightAttacks(from) & ~own & checkMask);
+        }
+
+        // Bishops and queens along the diagonals, rooks and queens along the ranks and files
+        long queens = boardModel.getBitboard(us, Rank.QUEEN);
+        for (long bishops = boardModel.getBitboard(us, Rank.BISHOP) | queens; bishops != 0; bishops &= bishops - 1) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            long targets = Attacks.bishopAttacks(from, occupied) & ~own & checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) targets &= Attacks.line(king, from);
+            addMoves(moves, enemy, from, targets);
+        }
+        for (long rooks = boardModel.getBitboard(us, Rank.ROOK) | queens; rooks != 0; rooks &= rooks - 1) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            long targets = Attacks.rookAttacks(from, occupied) & ~own & checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) targets &= Attacks.line(king, from);
+            addMoves(moves, enemy, from, targets);
+        }
+
+        // Pawns
+        int forward = us == Player.WHITE ? 8 : -8, startRow = us == Player.WHITE ? 1 : 6, lastRow = us == Player.WHITE ? 7 : 0;
+        int enPassant = boardModel.getEnPassant();
+        for (long pawns = boardModel.getBitboard(us, Rank.PAWN); pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns), to = from + forward;
+            long targets = 0;
+            if (to >= 0 && to < 64 && (occupied & Bitboards.bit(to)) == 0) {
+                targets |= Bitboards.bit(to);
+                if (Bitboards.row(from) == startRow && (occupied & Bitboards.bit(to + forward)) == 0)
+                    targets |= Bitboards.bit(to + forward);
+            }
+            targets = (targets | Attacks.pawnAttacks(us, from) & enemy) & checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) targets &= Attacks.line(king, from);
+            for (; targets != 0; targets &= targets - 1) {
+                to = Long.numberOfTrailingZeros(targets);
+                int flags = (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Math.abs(to - from) == 16 ? Move.DOUBLE_PUSH : 0;
+                if (Bitboards.row(to) == lastRow)
+                    for (int promotion : PROMOTIONS) moves.add(Move.encode(from, to, promotion, flags));
+                else moves.add(Move.encode(from, to, 0, flags));
+            }
+
+            // En passant, verified by removing both the pawns from the board to catch discovered checks along the rank
+            if (enPassant != BoardModel.NO_SQUARE && (Attacks.pawnAttacks(us, from) & Bitboards.bit(enPassant)) != 0) {
+                int captured = enPassant - forward;
+                if (((Bitboards.bit(enPassant) | Bitboards.bit(captured)) & checkMask) == 0) continue;
+                long after = occupied ^ Bitboards.bit(from) ^ Bitboards.bit(captured) | Bitboards.bit(enPassant);
+                if ((Attacks.rookAttacks(king, after) & enemyRooks) == 0 && (Attacks.bishopAttacks(king, after) & enemyBishops) == 0)
+                    moves.add(Move.encode(from, enPassant, 0, Move.CAPTURE | Move.EN_PASSANT));
+            }
+        }
+
+        // Castling, the king may not be in check or pass through an attacked square
+        if (checkers == 0 && king == (us == Player.WHITE ? 4 : 60)) {
+            int rook = Bitboards.pieceIndex(us, Rank.ROOK);
+            if (boardModel.hasCastlingRight(us, true) && boardModel.pieceIndexAt(king + 3) == rook
+                    && (occupied & (Bitboards.bit(king + 1) | Bitboards.bit(king + 2))) == 0
+                    && (danger & (Bitboards.bit(king + 1) | Bitboards.bit(king + 2))) == 0)
+                moves.add(Move.encode(king, king + 2, 0, Move.CASTLE));
+            if (boardModel.hasCastlingRight(us, false) && boardModel.pieceIndexAt(king - 4) == rook
+                    && (occupied & (Bitboards.bit(king - 1) | Bitboards.bit(king - 2) | Bitboards.bit(king - 3))) == 0
+                    && (danger & (Bitboards.bit(king - 1) | Bitboards.bit(king - 2))) == 0)
+                moves.add(Move.encode(king, king - 2, 0, Move.CASTLE));
+        }
+        return moves.size();
+    }
+
+    private static void addMoves(MoveList moves, long enemy, int from, long targets) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(Move.encode(from, to, 0, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : 0));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.gameData.Rank;
+
+/**
+ * Reusable buffer of packed {@link Move moves}<br>
+ * Adding moves never allocates, a list is cleared and refilled for every position
+ */
+public class MoveList {
+    /**
+     * Maximum number of legal moves in any chess position
+     */
+    public static final int MAX_MOVES = 256;
+    private final int[] moves = new int[MAX_MOVES];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    /**
+     * @return Packed move at the index
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return <code>true|false</code> - List has a move between the squares
+     */
+    public boolean contains(int from, int to) {
+        return indexOf(from, to) != -1;
+    }
+
+    /**
+     * @return Index of the first move between the squares, <code>-1</code> if not found
+     */
+    public int indexOf(int from, int to) {
+        int squares = from | to << 6;
+        for (int i = 0; i < size; i++)
+            if ((moves[i] & 0xFFF) == squares) return i;
+        return -1;
+    }
+
+    /**
+     * @param promotion Promotion rank, <code>null</code> if not a promotion
+     * @return Index of the move between the squares with the promotion, <code>-1</code> if not found
+     */
+    public int indexOf(int from, int to, Rank promotion) {
+        int move = from | to << 6 | (promotion == null ? 0 : promotion.ordinal()) << 12;
+        for (int i = 0; i < size; i++)
+            if ((moves[i] & 0x7FFF) == move) return i;
+        return -1;
+    }
+}
@@ -0,0 +1,241 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+
+/**
+ * Table driven encoder and decoder of packed {@link Move moves} in SAN and UCI formats<br>
+ * Moves are written into a caller supplied <code>char[]</code>, square names and piece letters come from interned tables<br>
+ * SAN disambiguation and decoding are resolved against the packed legal move list of the position
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Algebraic_notation_(chess)">More about SAN</a>
+ */
+public class Notation {
+    /**
+     * Longest SAN written (<code>Qa1xb2</code>, <code>exd8=Q</code>), checks are not written
+     */
+    public static final int MAX_SAN_LENGTH = 6;
+    /**
+     * Longest UCI move (<code>e7e8q</code>)
+     */
+    public static final int MAX_UCI_LENGTH = 5;
+    /**
+     * Results of {@link Notation#resolveSAN(CharSequence, BoardModel, MoveList)} when no single legal move matches
+     */
+    public static final int MALFORMED = -1, ILLEGAL = -2, AMBIGUOUS = -3;
+    private static final String[] SQUARES = new String[64];
+    /**
+     * Piece letter of each rank ordinal, pawns have no letter in SAN
+     */
+    private static final char[] SAN_LETTERS = {'K', 'Q', 'R', 'B', 'N', 0};
+    /**
+     * Promotion letter of each rank ordinal in UCI
+     */
+    private static final char[] UCI_LETTERS = {0, 'q', 'r', 'b', 'n', 0};
+    private static final char[] SHORT_CASTLE = "O-O".toCharArray(), LONG_CASTLE = "O-O-O".toCharArray();
+
+    static {
+        for (int square = 0; square < 64; square++)
+            SQUARES[square] = String.valueOf(new char[]{(char) ('a' + Bitboards.col(square)), (char) ('1' + Bitboards.row(square))}).intern();
+    }
+
+    /**
+     * @return Interned name of the square (<code>e4</code>)
+     */
+    public static String square(int square) {
+        return SQUARES[square];
+    }
+
+    /**
+     * Writes the move in UCI format
+     *
+     * @param buffer Buffer with at least {@link Notation#MAX_UCI_LENGTH} characters free after the offset
+     * @return Offset after the last character written
+     */
+    public static int writeUCI(int move, char[] buffer, int offset) {
+        int from = Move.from(move), to = Move.to(move), promotion = move >>> 12 & 7;
+        buffer[offset++] = (char) ('a' + Bitboards.col(from));
+        buffer[offset++] = (char) ('1' + Bitboards.row(from));
+        buffer[offset++] = (char) ('a' + Bitboards.col(to));
+        buffer[offset++] = (char) ('1' + Bitboards.row(to));
+        if (promotion != 0) buffer[offset++] = UCI_LETTERS[promotion];
+        return offset;
+    }
+
+    /**
+     * Writes the move in SAN without a check suffix, the move must be legal in the position
+     *
+     * @param boardModel Position before the move
+     * @param legalMoves Legal moves of the position, used for disambiguation
+     * @param buffer     Buffer with at least {@link Notation#MAX_SAN_LENGTH} characters free after the offset
+     * @return Offset after the last character written
+     */
+    public static int writeSAN(BoardModel boardModel, MoveList legalMoves, int move, char[] buffer, int offset) {
+        int from = Move.from(move), to = Move.to(move), promotion = move >>> 12 & 7;
+        if (Move.isCastle(move)) {
+            char[] castle = Bitboards.col(to) > Bitboards.col(from) ? SHORT_CASTLE : LONG_CASTLE;
+            System.arraycopy(castle, 0, buffer, offset, castle.length);
+            return offset + castle.length;
+        }
+
+        int piece = boardModel.pieceIndexAt(from), rank = piece % 6;
+        boolean capture = Move.isCapture(move);
+        if (SAN_LETTERS[rank] == 0) {
+            if (capture) buffer[offset++] = (char) ('a' + Bitboards.col(from));
+        } else {
+            buffer[offset++] = SAN_LETTERS[rank];
+            offset = writeDisambiguation(boardModel, legalMoves, piece, from, to, buffer, offset);
+        }
+        if (capture) buffer[offset++] = 'x';
+        buffer[offset++] = (char) ('a' + Bitboards.col(to));
+        buffer[offset++] = (char) ('1' + Bitboards.row(to));
+        if (promotion != 0) {
+            buffer[offset++] = '=';
+            buffer[offset++] = SAN_LETTERS[promotion];
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the file, the rank or both of the starting square when another piece of the same type can move to the same square<br>
+     * The file is preferred, the rank is used when the file is shared, both when each is shared
+     */
+    private static int writeDisambiguation(BoardModel boardModel, MoveList legalMoves, int piece, int from, int to, char[] buffer, int offset) {
+        boolean ambiguous = false, sameFile = false, sameRank = false;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int other = legalMoves.get(i), otherFrom = Move.from(other);
+            if (Move.to(other) != to || otherFrom == from || boardModel.pieceIndexAt(otherFrom) != piece) continue;
+            ambiguous = true;
+            sameFile |= Bitboards.col(otherFrom) == Bitboards.col(from);
+            sameRank |= Bitboards.row(otherFrom) == Bitboards.row(from);
+        }
+        if (!ambiguous) return offset;
+        if (!sameFile || sameRank) buffer[offset++] = (char) ('a' + Bitboards.col(from));
+        if (sameFile) buffer[offset++] = (char) ('1' + Bitboards.row(from));
+        return offset;
+    }
+
+    /**
+     * @return Move in SAN without a check suffix
+     * @see Notation#writeSAN(BoardModel, MoveList, int, char[], int)
+     */
+    public static String toSAN(BoardModel boardModel, MoveList legalMoves, int move) {
+        char[] buffer = new char[MAX_SAN_LENGTH];
+        return new String(buffer, 0, writeSAN(boardModel, legalMoves, move, buffer, 0));
+    }
+
+    /**
+     * Decodes a UCI move against the legal moves of the position
+     *
+     * @return Packed legal move, <code>-1</code> if the move is malformed or illegal
+     */
+    public static int fromUCI(CharSequence uci, MoveList legalMoves) {
+        int length = uci.length();
+        if (length != 4 && length != 5) return -1;
+        int from = squareAt(uci, 0), to = squareAt(uci, 2), promotion = 0;
+        if (from == -1 || to == -1) return -1;
+        if (length == 5 && (promotion = indexOf(UCI_LETTERS, Character.toLowerCase(uci.charAt(4)))) <= 0) return -1;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if ((move & 0x7FFF) == (from | to << 6 | promotion << 12)) return move;
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes a SAN move against the legal moves of the position<br>
+     * Check, mate and annotation suffixes are ignored, castling may be written with letter O or digit 0
+     *
+     * @param boardModel Position before the move
+     * @param legalMoves Legal moves of the position
+     * @return Packed legal move, <code>-1</code> if the move is malformed, illegal or ambiguous
+     * @see Notation#resolveSAN(CharSequence, BoardModel, MoveList)
+     */
+    public static int fromSAN(CharSequence san, BoardModel boardModel, MoveList legalMoves) {
+        return Math.max(resolveSAN(san, boardModel, legalMoves), -1);
+    }
+
+    /**
+     * Resolves a SAN move in a single pass over the legal moves of the position, matching the piece type, the destination,
+     * the disambiguation file and rank, and the promotion<br>
+     * Check, mate and annotation suffixes are ignored, castling may be written with letter O or digit 0
+     *
+     * @param boardModel Position before the move
+     * @param legalMoves Legal moves of the position
+     * @return Packed legal move, {@link Notation#MALFORMED} if the text is not SAN, {@link Notation#ILLEGAL} if no legal move matches,
+     * {@link Notation#AMBIGUOUS} if more than one legal move matches
+     */
+    public static int resolveSAN(CharSequence san, BoardModel boardModel, MoveList legalMoves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) != -1) end--;
+        if (end < 2) return MALFORMED;
+
+        if (isCastle(san, end)) {
+            boolean shortCastle = end == 3;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int move = legalMoves.get(i);
+                if (Move.isCastle(move) && Bitboards.col(Move.to(move)) > Bitboards.col(Move.from(move)) == shortCastle)
+                    return move;
+            }
+            return ILLEGAL;
+        }
+
+        int rank = indexOf(SAN_LETTERS, san.charAt(0)), start = 1, promotion = 0;
+        if (rank == -1) {
+            rank = 5;
+            start = san.charAt(0) == 'P' ? 1 : 0;
+        }
+
+        if (end - start >= 2 && Character.isLetter(san.charAt(end - 1)) && Character.isUpperCase(san.charAt(end - 1))) {
+            promotion = indexOf(SAN_LETTERS, san.charAt(end - 1));
+            if (rank != 5 || promotion <= 0 || promotion == 5) return MALFORMED;
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        if (end - start < 2) return MALFORMED;
+        int to = squareAt(san, end - 2);
+        if (to == -1) return MALFORMED;
+
+        int fromFile = -1, fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char ch = san.charAt(i);
+            if (ch >= 'a' && ch <= 'h' && fromFile == -1 && fromRow == -1) fromFile = ch - 'a';
+            else if (ch >= '1' && ch <= '8' && fromRow == -1) fromRow = ch - '1';
+            else if (ch != 'x' || i != end - 3) return MALFORMED;
+        }
+
+        int found = ILLEGAL;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i), from = Move.from(move);
+            if (Move.to(move) != to || (move >>> 12 & 7) != promotion || boardModel.pieceIndexAt(from) % 6 != rank || Move.isCastle(move))
+                continue;
+            if (fromFile != -1 && Bitboards.col(from) != fromFile || fromRow != -1 && Bitboards.row(from) != fromRow)
+                continue;
+            if (found != ILLEGAL) return AMBIGUOUS;
+            found = move;
+        }
+        return found;
+    }
+
+    private static boolean isCastle(CharSequence san, int end) {
+        if (end != 3 && end != 5) return false;
+        for (int i = 0; i < end; i++) {
+            char ch = san.charAt(i);
+            if (i % 2 == 1 ? ch != '-' : ch != 'O' && ch != '0') return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Square of the two characters at the index, <code>-1</code> if they are not a square
+     */
+    private static int squareAt(CharSequence notation, int index) {
+        char file = notation.charAt(index), row = notation.charAt(index + 1);
+        if (file < 'a' || file > 'h' || row < '1' || row > '8') return -1;
+        return Bitboards.square(row - '1', file - 'a');
+    }
+
+    private static int indexOf(char[] letters, char letter) {
+        if (letter == 0) return -1;
+        for (int i = 0; i < letters.length; i++) if (letters[i] == letter) return i;
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.gameData.Player;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed size binary encoding of a position in 32 bytes, used for snapshots of the game history<br>
+ * <code>occupied</code> - Bitboard of the occupied squares<br>
+ * <code>lowPieces</code>, <code>highPieces</code> - Piece index of each occupied square in ascending square order, 4 bits each (up to 32 pieces)<br>
+ * <code>state</code> - Side to move (bit 0), castling rights (bits 1-4), en passant square + 1 (bits 5-11), half move clock (bits 12-27), full move number (bits 28-59)
+ */
+public record PackedPosition(long occupied, long lowPieces, long highPieces, long state) implements Serializable {
+    /**
+     * Size of the encoding written by {@link PackedPosition#writeTo(ByteBuffer)}
+     */
+    public static final int BYTES = 32;
+    private static final int MAX_PIECES = 32;
+
+    /**
+     * Encodes the position of the board
+     *
+     * @throws IllegalArgumentException If the board has more than 32 pieces
+     */
+    public static PackedPosition of(BoardModel boardModel) {
+        long occupied = boardModel.getOccupied();
+        if (Long.bitCount(occupied) > MAX_PIECES)
+            throw new IllegalArgumentException("Position has more than " + MAX_PIECES + " pieces");
+
+        long[] pieces = new long[2];
+        int n = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1, n++)
+            pieces[n >>> 4] |= (long) boardModel.pieceIndexAt(Long.numberOfTrailingZeros(remaining)) << ((n & 15) << 2);
+
+        long state = (boardModel.isWhiteToPlay() ? 0 : 1) | (long) boardModel.getCastlingRights() << 1 | (long) (boardModel.getEnPassant() + 1) << 5
+                | (long) (boardModel.getHalfMove() & 0xFFFF) << 12 | (long) boardModel.getFullMove() << 28;
+        return new PackedPosition(occupied, pieces[0], pieces[1], state);
+    }
+
+    /**
+     * @return Piece index on each square or {@link Bitboards#EMPTY}
+     */
+    public byte[] mailbox() {
+        byte[] mailbox = new byte[64];
+        Arrays.fill(mailbox, Bitboards.EMPTY);
+        int n = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1, n++)
+            mailbox[Long.numberOfTrailingZeros(remaining)] = (byte) ((n < 16 ? lowPieces : highPieces) >>> ((n & 15) << 2) & 15);
+        return mailbox;
+    }
+
+    public Player turn() {
+        return (state & 1) == 0 ? Player.WHITE : Player.BLACK;
+    }
+
+    public int castlingRights() {
+        return (int) (state >>> 1 & 15);
+    }
+
+    /**
+     * @return En passant target square or {@link BoardModel#NO_SQUARE}
+     */
+    public int enPassant() {
+        return (int) (state >>> 5 & 127) - 1;
+    }
+
+    public int halfMove() {
+        return (int) (state >>> 12 & 0xFFFF);
+    }
+
+    public int fullMove() {
+        return (int) (state >>> 28 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Decodes the position into a new <code>BoardModel</code>, the move history is empty
+     */
+    public BoardModel toBoardModel() {
+        return BoardModel.fromPosition(mailbox(), turn(), castlingRights(), enPassant(), halfMove(), fullMove());
+    }
+
+    /**
+     * @return FEN of the position, written without building a <code>BoardModel</code>
+     */
+    public String toFEN() {
+        StringBuilder FEN = new StringBuilder(90);
+        BoardModel.appendFEN(FEN, mailbox(), turn(), castlingRights(), enPassant(), halfMove(), fullMove());
+        return FEN.toString();
+    }
+
+    /**
+     * Writes the {@link PackedPosition#BYTES} bytes of the encoding to the buffer
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(occupied).putLong(lowPieces).putLong(highPieces).putLong(state);
+    }
+
+    /**
+     * Reads an encoding written by {@link PackedPosition#writeTo(ByteBuffer)}
+     */
+    public static PackedPosition readFrom(ByteBuffer buffer) {
+        return new PackedPosition(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+}
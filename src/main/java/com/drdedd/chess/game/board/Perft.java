@@ -0,0 +1,119 @@
+package com.drdedd.chess.game.board;
+
+import com.drdedd.chess.game.BoardModel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft (performance test) counts the leaf nodes of the legal move tree of a position up to a depth<br>
+ * Node counts are compared with published values to validate the move generator, the time taken measures its throughput
+ *
+ * @see <a href="https://www.chessprogramming.org/Perft_Results">Perft results</a>
+ */
+public class Perft {
+
+    /**
+     * Counts the leaf nodes of the position
+     *
+     * @param boardModel Position, restored when the count is complete
+     * @param depth      Depth in plies
+     * @return Number of leaf nodes
+     */
+    public static long perft(BoardModel boardModel, int depth) {
+        return count(boardModel, depth, moveLists(depth));
+    }
+
+    /**
+     * Counts the leaf nodes under each legal move of the position
+     *
+     * @param boardModel Position, restored when the count is complete
+     * @param depth      Depth in plies (at least 1)
+     * @return Node count of each root move in UCI format, in generation order
+     */
+    public static LinkedHashMap<String, Long> divide(BoardModel boardModel, int depth) {
+        MoveList[] moveLists = moveLists(depth);
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generate(boardModel, rootMoves);
+        LinkedHashMap<String, Long> divide = new LinkedHashMap<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            divide.put(Move.toUCI(move), count(boardModel, depth - 1, moveLists));
+            boardModel.unmakeMove();
+        }
+        return divide;
+    }
+
+    /**
+     * Counts the leaf nodes under each legal move of the position, the root moves are split across a fork-join pool<br>
+     * Every root move is counted on its own copy of the board
+     *
+     * @param boardModel Position, not modified
+     * @param depth      Depth in plies (at least 1)
+     * @param threads    Number of worker threads
+     * @return Node count of each root move in UCI format, in generation order
+     */
+    public static LinkedHashMap<String, Long> divide(BoardModel boardModel, int depth, int threads) {
+        if (threads <= 1) return divide(boardModel.clone(), depth);
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generate(boardModel, rootMoves);
+        List<RootMoveTask> tasks = new ArrayList<>(rootMoves.size());
+        for (int i = 0; i < rootMoves.size(); i++) tasks.add(new RootMoveTask(boardModel, rootMoves.get(i), depth - 1));
+
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        }
+
+        LinkedHashMap<String, Long> divide = new LinkedHashMap<>();
+        for (RootMoveTask task : tasks) divide.put(Move.toUCI(task.move), task.join());
+        return divide;
+    }
+
+    private static long count(BoardModel boardModel, int depth, MoveList[] moveLists) {
+        if (depth == 0) return 1;
+        MoveList moves = moveLists[depth];
+        MoveGenerator.generate(boardModel, moves);
+        if (depth == 1) return moves.size();
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            nodes += count(boardModel, depth - 1, moveLists);
+            boardModel.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * One move list per remaining depth, so the recursion never allocates
+     */
+    private static MoveList[] moveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) moveLists[i] = new MoveList();
+        return moveLists;
+    }
+
+    private static class RootMoveTask extends RecursiveTask<Long> {
+        private final BoardModel boardModel;
+        private final int move, depth;
+
+        private RootMoveTask(BoardModel boardModel, int move, int depth) {
+            this.boardModel = boardModel.clone();
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            return count(boardModel, depth, moveLists(depth));
+        }
+    }
+}
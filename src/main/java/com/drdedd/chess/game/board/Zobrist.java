@@ -0,0 +1,52 @@
+package com.drdedd.chess.game.board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for hashing positions into 64-bit keys<br>
+ * A position key is the XOR of the keys of every piece on its square, the castling rights, the en passant file and the side to move<br>
+ * Keys are generated from a fixed seed, so a position has the same key on every run
+ */
+public class Zobrist {
+    private static final long[][] PIECES = new long[Bitboards.PIECE_TYPES][64];
+    private static final long[] CASTLING = new long[16], EN_PASSANT = new long[8];
+    private static final long BLACK_TO_PLAY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5A0B1157L);
+        for (long[] squares : PIECES)
+            for (int square = 0; square < 64; square++) squares[square] = random.nextLong();
+        for (int i = 0; i < CASTLING.length; i++) CASTLING[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT.length; i++) EN_PASSANT[i] = random.nextLong();
+        BLACK_TO_PLAY = random.nextLong();
+    }
+
+    /**
+     * @return Key of the piece index on the square
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECES[pieceIndex][square];
+    }
+
+    /**
+     * @param castlingRights Castling flags of both the players
+     * @return Key of the castling rights
+     */
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    /**
+     * @return Key of the en passant square's file
+     */
+    public static long enPassant(int square) {
+        return EN_PASSANT[Bitboards.col(square)];
+    }
+
+    /**
+     * @return Key toggled when Black is to play
+     */
+    public static long blackToPlay() {
+        return BLACK_TO_PLAY;
+    }
+}
@@ -3,40 +3,19 @@ package com.drdedd.chess.game.gameData;
 import lombok.Getter;
 
 /**
- * Player type (White/Black)
+ * Player type (White/Black)<br>
+ * Players are shared by every game, so they carry no per-game state (check status is a property of the position, see {@link com.drdedd.chess.game.BoardModel#isKingAttacked(Player)})
  */
 @Getter
 public enum Player {
-    WHITE("White", false), BLACK("Black", false);
+    WHITE("White"), BLACK("Black");
     /**
      * -- GETTER --
      *
      */
-    boolean inCheck;
-    /**
-     * -- GETTER --
-     *
-     */
-    String name;
-
-    Player(String name, boolean inCheck) {
-        this.name = name;
-        this.inCheck = inCheck;
-    }
+    final String name;
 
-    /**
-     * Set Player's name
-     * @param name Name of the player
-     */
-    public void setName(String name) {
+    Player(String name) {
         this.name = name;
     }
-
-    /**
-     * Set check flag <code>(true|false)</code>
-     */
-    public void setInCheck(boolean inCheck) {
-        this.inCheck = inCheck;
-    }
 }
-
@@ -0,0 +1,19 @@
+package com.drdedd.chess.game.gameData;
+
+/**
+ * When <code>GameLogic</code> computes the legal moves, check status and termination of a position ({@link UpdateMode#EAGER Eager}, {@link UpdateMode#LAZY Lazy}, {@link UpdateMode#REPLAY Replay})
+ */
+public enum UpdateMode {
+    /**
+     * Computed after every move
+     */
+    EAGER,
+    /**
+     * Computed on first access after a move
+     */
+    LAZY,
+    /**
+     * Legal moves are computed on first access, check status and termination are skipped while moves are replayed
+     */
+    REPLAY
+}
@@ -0,0 +1,148 @@
+package com.drdedd.chess.game.pgn;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pipeline stage which decompresses an input on its own thread, ahead of the reader<br>
+ * The stage thread reads the decoded input in chunks of 64 KiB into a bounded queue, the reader takes the chunks through this <code>InputStream</code>,
+ * so decompression and the stages after it (splitting, parsing) overlap on different cores<br>
+ * Chunks are recycled through a second queue, at most <code>capacity</code> chunks are in flight and no garbage is created per chunk<br>
+ * Read errors of the stage thread are thrown by the reader once the chunks before the error are consumed
+ */
+public class DecompressionStage extends InputStream {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final byte[] END = {};
+    private final InputStream source;
+    private final ArrayBlockingQueue<byte[]> chunks, free;
+    private final Thread thread;
+    private volatile IOException error;
+    private byte[] chunk;
+    private int position, limit;
+    /**
+     * Time the stage thread spent reading and decompressing
+     */
+    @Getter
+    private volatile long busyNanos;
+    /**
+     * Time the reader waited for a chunk
+     */
+    @Getter
+    private long waitNanos;
+    /**
+     * Number of decompressed bytes produced
+     */
+    @Getter
+    private volatile long bytesDecompressed;
+
+    /**
+     * Starts the stage thread
+     *
+     * @param source   Decoding stream read on the stage thread, closed with the stage
+     * @param capacity Maximum number of chunks decompressed but not yet read
+     */
+    public DecompressionStage(InputStream source, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.source = source;
+        chunks = new ArrayBlockingQueue<>(capacity + 1);
+        free = new ArrayBlockingQueue<>(capacity + 1);
+        thread = Thread.ofPlatform().name("pgn-decompression").daemon().start(this::decompress);
+    }
+
+    /**
+     * Stage decompressing a gzip stream, up to 16 chunks (1 MiB) ahead of the reader
+     *
+     * @param compressed gzip-compressed input, closed with the stage
+     * @throws IOException If the gzip header cannot be read
+     */
+    public static DecompressionStage gzip(InputStream compressed) throws IOException {
+        return new DecompressionStage(new GZIPInputStream(compressed, CHUNK_SIZE), 16);
+    }
+
+    /**
+     * Body of the stage thread
+     */
+    private void decompress() {
+        try {
+            while (true) {
+                byte[] buffer = free.poll();
+                if (buffer == null) buffer = new byte[CHUNK_SIZE];
+                long start = System.nanoTime();
+                int length = source.readNBytes(buffer, 0, CHUNK_SIZE);
+                busyNanos += System.nanoTime() - start;
+                if (length == 0) break;
+                bytesDecompressed += length;
+                chunks.put(length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+//          The stage was closed
+            return;
+        }
+        try {
+            chunks.put(END);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !nextChunk()) return -1;
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (position == limit && !nextChunk()) return -1;
+        int count = Math.min(length, limit - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Takes the next chunk from the queue, the previous chunk is handed back to the stage thread
+     *
+     * @return <code>false</code> at the end of the input
+     */
+    private boolean nextChunk() throws IOException {
+        if (chunk == END) return false;
+        if (chunk != null && chunk.length == CHUNK_SIZE) free.offer(chunk);
+        long start = System.nanoTime();
+        try {
+            chunk = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for decompression");
+        } finally {
+            waitNanos += System.nanoTime() - start;
+        }
+        position = 0;
+        limit = chunk.length;
+        if (chunk == END && error != null) throw new IOException("Decompression failed", error);
+        return chunk != END;
+    }
+
+    /**
+     * Stops the stage thread and closes the source
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        chunk = END;
+        source.close();
+    }
+}
@@ -0,0 +1,176 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.Notation;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of the moves of a game, one byte per ply<br>
+ * Each ply is stored as the index of the played move in the legal moves of the position, ordered by their packed value
+ * (promotion, destination, starting square), so the index does not depend on the order of the {@link MoveGenerator}<br>
+ * A position has at most 218 legal moves, every index fits in a byte. The encoding starts with the number of plies as a varint<br>
+ * Tags are not encoded, they are stored separately. The starting position is the <code>FEN</code> tag, the initial position if absent<br>
+ * Decoding replays the moves on a {@link BoardModel} with the move generator, without the <code>Piece</code> views of {@link com.drdedd.chess.game.GameLogic}<br>
+ * A codec reuses its board and buffers and is not thread safe, use one codec per thread
+ */
+public class GameCodec {
+    private final MoveList legalMoves = new MoveList();
+    private final int[] order = new int[MoveList.MAX_MOVES];
+    private final char[] notation = new char[Notation.MAX_SAN_LENGTH];
+    /**
+     * Initial position, every game played on it is unmade before the next game
+     */
+    private final BoardModel initialPosition = new BoardModel(true);
+
+    /**
+     * Encodes the moves of the game, the starting position is read from the <code>FEN</code> tag
+     *
+     * @throws IllegalArgumentException If a move is illegal in its position
+     */
+    public byte[] encode(PGNData data) {
+        int plies = data.getPlyCount();
+        byte[] encoded = new byte[varintLength(plies) + plies];
+        int offset = writeVarint(encoded, plies);
+        BoardModel boardModel = startingPosition(data.getTag(PGN.TAG_FEN, ""));
+        try {
+            for (int ply = 0; ply < plies; ply++) {
+                int move = data.getMove(ply);
+                MoveGenerator.generate(boardModel, legalMoves);
+                int index = 0, played = -1;
+                for (int i = 0; i < legalMoves.size(); i++) {
+                    int key = legalMoves.get(i) & 0x7FFF;
+                    if (key < move) index++;
+                    else if (key == move) played = legalMoves.get(i);
+                }
+                if (played == -1)
+                    throw new IllegalArgumentException(String.format("Illegal move %s at ply %d", data.getUciMove(ply), ply));
+                encoded[offset++] = (byte) index;
+                boardModel.makeMove(Move.from(played), Move.to(played), Move.promotion(played));
+            }
+        } finally {
+            restore(boardModel);
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes the moves of the game
+     *
+     * @see GameCodec#encode(PGNData)
+     */
+    public byte[] encode(PGN pgn) {
+        return encode(pgn.getPGNData());
+    }
+
+    /**
+     * Decodes the moves and adds them to the game with their SAN and UCI notation<br>
+     * The starting position is read from the <code>FEN</code> tag, so the tags should be added before the moves
+     *
+     * @param data Game holding the tags of the encoded game
+     * @throws IllegalArgumentException If the encoding is malformed
+     */
+    public void decode(byte[] encoded, PGNData data) {
+        BoardModel boardModel = startingPosition(data.getTag(PGN.TAG_FEN, ""));
+        try {
+            int plies = readVarint(encoded), offset = varintLength(plies);
+            checkLength(encoded, offset + plies);
+            for (int ply = 0; ply < plies; ply++) {
+                int move = nextMove(boardModel, encoded[offset + ply] & 0xFF, ply);
+                data.addMove(new String(notation, 0, Notation.writeSAN(boardModel, legalMoves, move, notation, 0)), move);
+                boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            }
+        } finally {
+            restore(boardModel);
+        }
+    }
+
+    /**
+     * Decodes the moves without notation, for consumers which replay or index the games themselves
+     *
+     * @param FEN Starting position, empty for the initial position
+     * @return Packed {@link Move moves} of the game
+     * @throws IllegalArgumentException If the encoding is malformed
+     */
+    public int[] decodeMoves(byte[] encoded, String FEN) {
+        BoardModel boardModel = startingPosition(FEN);
+        try {
+            int plies = readVarint(encoded), offset = varintLength(plies);
+            checkLength(encoded, offset + plies);
+            int[] moves = new int[plies];
+            for (int ply = 0; ply < plies; ply++) {
+                int move = moves[ply] = nextMove(boardModel, encoded[offset + ply] & 0xFF, ply);
+                boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            }
+            return moves;
+        } finally {
+            restore(boardModel);
+        }
+    }
+
+    /**
+     * @return Number of plies of the encoded game
+     */
+    public static int plies(byte[] encoded) {
+        return readVarint(encoded);
+    }
+
+    /**
+     * Generates the legal moves of the position into {@link GameCodec#legalMoves}
+     *
+     * @return Legal move at the index in packed value order
+     */
+    private int nextMove(BoardModel boardModel, int index, int ply) {
+        int count = MoveGenerator.generate(boardModel, legalMoves);
+        if (index >= count)
+            throw new IllegalArgumentException(String.format("Move index %d out of %d legal moves at ply %d", index, count, ply));
+        for (int i = 0; i < count; i++) order[i] = (legalMoves.get(i) & 0x7FFF) << 8 | i;
+        Arrays.sort(order, 0, count);
+        return legalMoves.get(order[index] & 0xFF);
+    }
+
+    private BoardModel startingPosition(String FEN) {
+        return FEN == null || FEN.isEmpty() ? initialPosition : BoardModel.fromFEN(FEN);
+    }
+
+    /**
+     * Unmakes the moves played on the initial position
+     */
+    private void restore(BoardModel boardModel) {
+        if (boardModel == initialPosition) while (boardModel.getPly() > 0) boardModel.unmakeMove();
+    }
+
+    private static void checkLength(byte[] encoded, int length) {
+        if (encoded.length < length)
+            throw new IllegalArgumentException(String.format("Encoded game has %d bytes, expected %d", encoded.length, length));
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        for (; value >= 0x80; value >>>= 7) length++;
+        return length;
+    }
+
+    private static int writeVarint(byte[] buffer, int value) {
+        int offset = 0;
+        for (; value >= 0x80; value >>>= 7) buffer[offset++] = (byte) (value & 0x7F | 0x80);
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVarint(byte[] buffer) {
+        int value = 0;
+        for (int offset = 0, shift = 0; shift < 32; offset++, shift += 7) {
+            if (offset == buffer.length) throw new IllegalArgumentException("Encoded game is truncated");
+            value |= (buffer[offset] & 0x7F) << shift;
+            if (buffer[offset] < 0) continue;
+//          Only the shortest encoding is accepted, the moves start at varintLength(value)
+            if (value >= 0 && varintLength(value) == offset + 1) return value;
+            break;
+        }
+        throw new IllegalArgumentException("Malformed ply count");
+    }
+}
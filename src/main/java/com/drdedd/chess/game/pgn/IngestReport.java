@@ -0,0 +1,49 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.misc.MiscMethods;
+
+/**
+ * Throughput and stage utilisation of a {@link PGNIngestor} run<br>
+ * Busy times are summed over the threads of each stage, the utilisation of a stage is its busy time over the wall time,
+ * the parse stage runs on several workers and can exceed one core
+ *
+ * @param games           Number of games read
+ * @param failed          Number of games which could not be parsed
+ * @param inputBytes      Size of the input file, compressed or not, <code>0</code> if unknown
+ * @param characters      Number of characters of PGN read
+ * @param wallNanos       Duration of the run
+ * @param decompressNanos Time spent decompressing on the {@link DecompressionStage}, <code>0</code> for plain input
+ * @param splitNanos      Time spent splitting the games, without waiting for decompression
+ * @param parseNanos      Time spent parsing on all the workers
+ * @param consumeNanos    Time spent in the consumer
+ */
+public record IngestReport(long games, long failed, long inputBytes, long characters, long wallNanos,
+                           long decompressNanos, long splitNanos, long parseNanos, long consumeNanos) {
+
+    public double gamesPerSecond() {
+        return wallNanos == 0 ? 0 : games * 1e9 / wallNanos;
+    }
+
+    /**
+     * @return Millions of characters of PGN per second
+     */
+    public double megacharactersPerSecond() {
+        return wallNanos == 0 ? 0 : characters * 1e3 / wallNanos;
+    }
+
+    /**
+     * @return Busy time of the stage over the wall time, number of cores kept busy by the stage
+     */
+    public double utilisation(long stageNanos) {
+        return wallNanos == 0 ? 0 : (double) stageNanos / wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d games (%,d failed) in %s: %,.0f games/s, %.1f M chars/s%s%n"
+                        + "Stage utilisation: decompress %.0f%%, split %.0f%%, parse %.2f cores, consume %.0f%%",
+                games, failed, MiscMethods.formatNanoseconds(wallNanos), gamesPerSecond(), megacharactersPerSecond(),
+                inputBytes == 0 ? "" : String.format(", %.1f MB/s of input", inputBytes * 1e3 / Math.max(wallNanos, 1)),
+                utilisation(decompressNanos) * 100, utilisation(splitNanos) * 100, utilisation(parseNanos), utilisation(consumeNanos) * 100);
+    }
+}
@@ -0,0 +1,21 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.ParsedGame;
+
+/**
+ * Result of one game of a {@link PGNIngestor} run
+ *
+ * @param index      Position of the game in the input (0 based, including invalid games)
+ * @param parsedGame Parsed game, <code>null</code> if the game is invalid
+ * @param error      Reason the game is invalid, <code>null</code> if it was parsed
+ * @param pgnContent PGN of an invalid game, <code>null</code> if it was parsed
+ */
+public record IngestedGame(long index, ParsedGame parsedGame, String error, String pgnContent) {
+
+    /**
+     * @return <code>true|false</code> - Game was parsed
+     */
+    public boolean isValid() {
+        return parsedGame != null;
+    }
+}
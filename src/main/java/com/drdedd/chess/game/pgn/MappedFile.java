@@ -0,0 +1,79 @@
+package com.drdedd.chess.game.pgn;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only memory mapping of a file of any size, mapped in segments of {@link MappedFile#SEGMENT} bytes<br>
+ * Consecutive segments overlap by {@link MappedFile#OVERLAP} bytes so a range shorter than the overlap is always inside one segment,
+ * longer ranges which cross a segment boundary are copied
+ */
+class MappedFile implements Closeable {
+    static final long SEGMENT = 1L << 30;
+    static final int OVERLAP = 1 << 20;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    MappedFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        segments = new MappedByteBuffer[(int) Math.max(1, (size + SEGMENT - 1) / SEGMENT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * SEGMENT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT + OVERLAP));
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return Read only view of the range, a copy if it crosses a segment boundary beyond the overlap
+     */
+    ByteBuffer slice(long position, int length) {
+        if (position < 0 || length < 0 || position + length > size)
+            throw new IndexOutOfBoundsException("Range " + position + "+" + length + " outside file of " + size + " bytes");
+        MappedByteBuffer segment = segments[(int) (position / SEGMENT)];
+        int offset = (int) (position % SEGMENT);
+        if (offset + length <= segment.limit()) return segment.slice(offset, length).asReadOnlyBuffer();
+
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        try {
+            while (copy.hasRemaining())
+                if (channel.read(copy, position + copy.position()) == -1) throw new EOFException();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return copy.flip().asReadOnlyBuffer();
+    }
+
+    long getLong(long position) {
+        return segments[(int) (position / SEGMENT)].getLong((int) (position % SEGMENT));
+    }
+
+    int getInt(long position) {
+        return segments[(int) (position / SEGMENT)].getInt((int) (position % SEGMENT));
+    }
+
+    short getShort(long position) {
+        return segments[(int) (position / SEGMENT)].getShort((int) (position % SEGMENT));
+    }
+
+    byte get(long position) {
+        return segments[(int) (position / SEGMENT)].get((int) (position % SEGMENT));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
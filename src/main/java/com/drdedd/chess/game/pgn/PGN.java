@@ -3,10 +3,12 @@ package com.drdedd.chess.game.pgn;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Set;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * PGN (Portable Game Notation) is a standard text format used to record Chess game moves with standard notations
@@ -108,10 +110,7 @@ public class PGN implements Serializable {
      * Removes last move from PGN
      */
     public void removeLast() {
-        if (!data.getSanMoves().isEmpty()) {
-            data.getSanMoves().removeLast();
-            data.getUciMoves().removeLast();
-        }
+        data.removeLastMove();
     }
 
     /**
@@ -146,7 +145,10 @@ public class PGN implements Serializable {
      */
     @Override
     public String toString() {
-        return getTags() + getPGNCommented();
+        return write(writer -> {
+            writer.writeTags(this);
+            writer.writeMoves(data, true);
+        });
     }
 
     /**
@@ -155,16 +157,19 @@ public class PGN implements Serializable {
      * @return String - PGN Tags text
      */
     public String getTags() {
-        StringBuilder tags = new StringBuilder();
+        return write(writer -> writer.writeTags(this));
+    }
+
+    /**
+     * Adds the result, termination and starting position to the tags
+     */
+    void updateTags() {
         data.addTag(TAG_RESULT, getResult());
         if (!termination.isEmpty()) data.addTag(TAG_TERMINATION, termination);
         if (startingPosition != null && !startingPosition.isEmpty()) {
             data.addTag(TAG_SET_UP, "1");
             data.addTag(TAG_FEN, startingPosition);
         }
-        Set<String> tagSet = data.getTagNames();
-        for (String tag : tagSet) tags.append(String.format("[%s \"%s\"]\n", tag, data.getTag(tag, PGN.UNKNOWN)));
-        return tags.toString();
     }
 
     /**
@@ -189,38 +194,38 @@ public class PGN implements Serializable {
      * @return <code>String</code> - PGN moves without tags, comments and annotations
      */
     public String getPGNMoves() {
-        StringBuilder pgn = new StringBuilder();
-        int length = data.getSanMoves().size();
-        for (int i = 0; i < length; i++) {
-            if (i % 2 == 0) pgn.append(i / 2 + 1).append(". ");
-            pgn.append(data.getSanMoves().get(i)).append(' ');
-        }
-        return pgn.toString();
+        return write(writer -> writer.writeMoves(data, false));
     }
 
     /**
      * @return <code>String</code> - PGN moves with comments and annotation
      */
     public String getPGNCommented() {
-        StringBuilder pgn = new StringBuilder();
-        int length = data.getSanMoves().size();
-        for (int i = 0; i < length; i++) {
-            if (i % 2 == 0) pgn.append(i / 2 + 1).append(". ");
-            pgn.append(data.getSanMoves().get(i));
-            if (data.getAnnotationMap().containsKey(i)) pgn.append(data.getAnnotationMap().get(i).getAnnotation());
-            pgn.append(' ');
-            if (data.getCommentsMap().containsKey(i)) pgn.append(data.getCommentsMap().get(i)).append(' ');
-            if (data.getAlternateMoveSequence().containsKey(i))
-                pgn.append(data.getAlternateMoveSequence().get(i)).append(' ');
+        return write(writer -> writer.writeMoves(data, true));
+    }
+
+    /**
+     * Writes part of the PGN to a <code>String</code>, bulk export should use a {@link PGNWriter} on the output instead
+     */
+    private static String write(Section section) {
+        StringWriter text = new StringWriter();
+        try (PGNWriter writer = new PGNWriter(text)) {
+            section.write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return pgn.toString();
+        return text.toString();
+    }
+
+    private interface Section {
+        void write(PGNWriter writer) throws IOException;
     }
 
     /**
      * @return Number of half moves played
      */
     public int getPlyCount() {
-        return data.getSanMoves().size();
+        return data.getPlyCount();
     }
 
     /**
@@ -228,7 +233,7 @@ public class PGN implements Serializable {
      * @return <code>String|null</code> - Move at given position
      */
     public String getMoveAt(int moveNo) {
-        if (moveNo < data.getSanMoves().size()) return data.getSanMoves().get(moveNo);
+        if (moveNo < data.getPlyCount()) return data.getSanMove(moveNo);
         return null;
     }
 
@@ -237,21 +242,21 @@ public class PGN implements Serializable {
      * @return <code>String|null</code> - UCI move at given position
      */
     public String getUCIMoveAt(int moveNo) {
-        if (moveNo < data.getUciMoves().size()) return data.getUciMoves().get(moveNo);
+        if (moveNo < data.getPlyCount()) return data.getUciMove(moveNo);
         return null;
     }
 
     /**
-     * @return List of moves
+     * @return View of the moves
      */
-    public LinkedList<String> getMoves() {
+    public List<String> getMoves() {
         return data.getSanMoves();
     }
 
     /**
-     * @return List of UCI moves
+     * @return View of the UCI moves
      */
-    public LinkedList<String> getUCIMoves() {
+    public List<String> getUCIMoves() {
         return data.getUciMoves();
     }
 
@@ -265,7 +270,7 @@ public class PGN implements Serializable {
         data.addTag(tag, value);
     }
 
-    public void addAllTags(HashMap<String, String> tags) {
+    public void addAllTags(Map<String, String> tags) {
         data.addTags(tags);
     }
 
@@ -278,7 +283,7 @@ public class PGN implements Serializable {
     }
 
     public boolean hasNoEval() {
-        return data.getEvalMap().isEmpty() || data.getEvalMap().size() == 1;
+        return data.getEvalMap().size() <= 1;
     }
 
     public boolean isFENEmpty() {
@@ -1,55 +1,227 @@
 package com.drdedd.chess.game.pgn;
 
+import com.drdedd.chess.game.board.Move;
 import com.drdedd.chess.game.gameData.ChessAnnotation;
-import lombok.Getter;
-import lombok.Setter;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Moves, tags and per move data of a game in a compact layout<br>
+ * Moves are parallel arrays indexed by ply: SAN strings and UCI moves packed in a <code>short</code><br>
+ * Comments, evaluations, alternate move sequences and annotations are sparse {@link PlyMap ply maps}, allocated on their first entry<br>
+ * Tags are a flat array of name and value pairs, names and common values are shared through a {@link TagDictionary}<br>
+ * The collection getters return live views backed by the arrays
+ */
 public class PGNData implements Serializable {
-    @Getter
-    private final LinkedList<String> sanMoves, uciMoves;
-    @Getter
-    private final LinkedHashMap<String, String> tagsMap;
-    @Getter
-    private final LinkedHashMap<Integer, String> evalMap, commentsMap, alternateMoveSequence;
-    @Getter
-    private final LinkedHashMap<Integer, ChessAnnotation> annotationMap;
-    @Getter
-    @Setter
-    private LinkedList<String> tempMoves;
+    private static final String[] NO_SAN_MOVES = {};
+    private static final short[] NO_UCI_MOVES = {};
+    /**
+     * Shared UCI strings of each packed move
+     */
+    private static final String[] UCI_STRINGS = new String[1 << 15];
+    private transient TagDictionary dictionary;
+    private String[] sanMoves = NO_SAN_MOVES;
+    private short[] uciMoves = NO_UCI_MOVES;
+    private int plies;
+    private String[] tags = new String[16];
+    private int tagCount;
+    private final PlyMap<String> evalMap = new PlyMap<>(), commentsMap = new PlyMap<>(), alternateMoveSequence = new PlyMap<>();
+    private final PlyMap<ChessAnnotation> annotationMap = new PlyMap<>();
+    /**
+     * SAN words read from the PGN before they are validated, released once the game is parsed
+     */
+    private transient List<String> tempMoves;
 
     public PGNData() {
-        sanMoves = new LinkedList<>();
-        uciMoves = new LinkedList<>();
-        tagsMap = new LinkedHashMap<>();
-        commentsMap = new LinkedHashMap<>();
-        annotationMap = new LinkedHashMap<>();
-        alternateMoveSequence = new LinkedHashMap<>();
-        evalMap = new LinkedHashMap<>();
-        tempMoves = new LinkedList<>();
+        this(TagDictionary.STANDARD);
+    }
+
+    /**
+     * @param dictionary Dictionary shared by the tags of a batch of games
+     */
+    public PGNData(TagDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public PGNData(List<String> sanMoves, List<String> uciMoves, Map<String, String> tagsMap, Map<Integer, String> commentsMap, Map<Integer, ChessAnnotation> annotationMap, Map<Integer, String> alternateMoveSequence, Map<Integer, String> evalMap) {
+        this();
+        for (int i = 0; i < sanMoves.size(); i++) addMove(sanMoves.get(i), uciMoves.get(i));
+        addTags(tagsMap);
+        this.commentsMap.putAll(commentsMap);
+        this.annotationMap.putAll(annotationMap);
+        this.alternateMoveSequence.putAll(alternateMoveSequence);
+        this.evalMap.putAll(evalMap);
+    }
+
+    /**
+     * @return View of the SAN moves
+     */
+    public List<String> getSanMoves() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getSanMove(index);
+            }
+
+            @Override
+            public int size() {
+                return plies;
+            }
+        };
+    }
+
+    /**
+     * @return View of the UCI moves
+     */
+    public List<String> getUciMoves() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getUciMove(index);
+            }
+
+            @Override
+            public int size() {
+                return plies;
+            }
+        };
+    }
+
+    /**
+     * @return Number of moves
+     */
+    public int getPlyCount() {
+        return plies;
     }
 
-    public PGNData(LinkedList<String> sanMoves, LinkedList<String> uciMoves, LinkedHashMap<String, String> tagsMap, LinkedHashMap<Integer, String> commentsMap, LinkedHashMap<Integer, ChessAnnotation> annotationMap, LinkedHashMap<Integer, String> alternateMoveSequence, LinkedHashMap<Integer, String> evalMap) {
-        this.sanMoves = sanMoves;
-        this.uciMoves = uciMoves;
-        this.tagsMap = tagsMap;
-        this.commentsMap = commentsMap;
-        this.annotationMap = annotationMap;
-        this.alternateMoveSequence = alternateMoveSequence;
-        this.evalMap = evalMap;
-        tempMoves = new LinkedList<>();
+    public String getSanMove(int ply) {
+        Objects.checkIndex(ply, plies);
+        return sanMoves[ply];
+    }
+
+    public String getUciMove(int ply) {
+        Objects.checkIndex(ply, plies);
+        int move = uciMoves[ply];
+        String uci = UCI_STRINGS[move];
+        if (uci == null) UCI_STRINGS[move] = uci = Move.toUCI(move).intern();
+        return uci;
+    }
+
+    /**
+     * @param sanMove SAN notation move
+     * @param uciMove UCI notation move
+     */
+    public void addMove(String sanMove, String uciMove) {
+        addMove(sanMove, packUCI(uciMove));
+    }
+
+    /**
+     * @param sanMove SAN notation move
+     * @param move    Packed {@link Move move}, only the squares and the promotion are kept
+     */
+    void addMove(String sanMove, int move) {
+        if (plies == sanMoves.length) {
+            sanMoves = Arrays.copyOf(sanMoves, Math.max(16, plies * 2));
+            uciMoves = Arrays.copyOf(uciMoves, sanMoves.length);
+        }
+        sanMoves[plies] = sanMove;
+        uciMoves[plies] = (short) (move & 0x7FFF);
+        plies++;
+    }
+
+    /**
+     * @return Move packed as <code>from | to << 6 | promotion << 12</code>
+     */
+    int getMove(int ply) {
+        Objects.checkIndex(ply, plies);
+        return uciMoves[ply];
+    }
+
+    /**
+     * Removes the last move, if any
+     */
+    public void removeLastMove() {
+        if (plies > 0) sanMoves[--plies] = null;
+    }
+
+    /**
+     * @return Move packed as <code>from | to << 6 | promotion << 12</code>
+     * @throws IllegalArgumentException If the move is not in UCI format
+     */
+    private static short packUCI(String uci) {
+        int length = uci.length(), promotion = 0;
+        if (length == 5 && (promotion = "?qrbn".indexOf(uci.charAt(4))) <= 0 || length != 4 && length != 5)
+            throw new IllegalArgumentException("Invalid UCI move: " + uci);
+        int from = square(uci, 0), to = square(uci, 2);
+        if (from == -1 || to == -1) throw new IllegalArgumentException("Invalid UCI move: " + uci);
+        return (short) (from | to << 6 | promotion << 12);
+    }
+
+    private static int square(String uci, int index) {
+        char file = uci.charAt(index), row = uci.charAt(index + 1);
+        if (file < 'a' || file > 'h' || row < '1' || row > '8') return -1;
+        return (row - '1') * 8 + file - 'a';
+    }
+
+    /**
+     * @return View of the tags in insertion order, <code>put</code> adds a tag
+     */
+    public Map<String, String> getTagsMap() {
+        return new AbstractMap<>() {
+            @Override
+            public String get(Object key) {
+                return key instanceof String tag ? getTag(tag, null) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String tag && indexOfTag(tag) != -1;
+            }
+
+            @Override
+            public String put(String key, String value) {
+                String previous = getTag(key, null);
+                addTag(key, value);
+                return previous;
+            }
+
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<>() {
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < tagCount;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (next >= tagCount) throw new NoSuchElementException();
+                                next++;
+                                return new SimpleImmutableEntry<>(tags[next * 2 - 2], tags[next * 2 - 1]);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return tagCount;
+                    }
+                };
+            }
+        };
     }
 
     /**
      * @return <code>Set</code> of tag names
      */
     public Set<String> getTagNames() {
-        return tagsMap.keySet();
+        return getTagsMap().keySet();
     }
 
     /**
@@ -58,24 +230,37 @@ public class PGNData implements Serializable {
      * @return <code>String</code> - Tag value | Default value
      */
     public String getTag(String tagName, String defaultValue) {
-        return tagsMap.getOrDefault(tagName, defaultValue);
+        int index = indexOfTag(tagName);
+        return index == -1 ? defaultValue : tags[index + 1];
+    }
+
+    private int indexOfTag(String tagName) {
+        for (int i = 0; i < tagCount * 2; i += 2) if (tags[i].equals(tagName)) return i;
+        return -1;
+    }
+
+    public List<String> getTempMoves() {
+        return tempMoves == null ? List.of() : tempMoves;
+    }
+
+    public void setTempMoves(List<String> tempMoves) {
+        this.tempMoves = tempMoves;
     }
 
     public String getLastTempMove() {
-        return tempMoves.getLast();
+        return getTempMoves().getLast();
     }
 
     public void addTempMove(String move) {
+        if (tempMoves == null) tempMoves = new ArrayList<>();
         tempMoves.add(move);
     }
 
     /**
-     * @param sanMove SAN notation move
-     * @param uciMove UCI notation move
+     * Releases the SAN words read from the PGN
      */
-    public void addMove(String sanMove, String uciMove) {
-        sanMoves.add(sanMove);
-        uciMoves.add(uciMove);
+    public void clearTempMoves() {
+        tempMoves = null;
     }
 
     /**
@@ -83,7 +268,17 @@ public class PGNData implements Serializable {
      * @param value Value of the tag
      */
     public void addTag(String tag, String value) {
-        tagsMap.put(tag, value);
+        if (dictionary == null) dictionary = TagDictionary.STANDARD;
+        if (value != null) value = dictionary.internValue(tag, value);
+        int index = indexOfTag(tag);
+        if (index != -1) {
+            tags[index + 1] = value;
+            return;
+        }
+        if (tagCount * 2 == tags.length) tags = Arrays.copyOf(tags, tags.length * 2);
+        tags[tagCount * 2] = dictionary.internName(tag);
+        tags[tagCount * 2 + 1] = value;
+        tagCount++;
     }
 
     /**
@@ -91,8 +286,8 @@ public class PGNData implements Serializable {
      *
      * @param tags List of tags to add
      */
-    public void addTags(HashMap<String, String> tags) {
-        tagsMap.putAll(tags);
+    public void addTags(Map<String, String> tags) {
+        for (Map.Entry<String, String> tag : tags.entrySet()) addTag(tag.getKey(), tag.getValue());
     }
 
     /**
@@ -127,4 +322,48 @@ public class PGNData implements Serializable {
     public void addEval(int moveNo, String eval) {
         evalMap.put(moveNo, eval);
     }
-}
\ No newline at end of file
+
+    /**
+     * @return Comment of the move, <code>null</code> if none
+     */
+    public String getComment(int moveNo) {
+        return commentsMap.get(moveNo);
+    }
+
+    /**
+     * @return Annotation of the move, <code>null</code> if none
+     */
+    public ChessAnnotation getAnnotation(int moveNo) {
+        return annotationMap.get(moveNo);
+    }
+
+    /**
+     * @return Alternate move sequence of the move, <code>null</code> if none
+     */
+    public String getAlternateMoveSequence(int moveNo) {
+        return alternateMoveSequence.get(moveNo);
+    }
+
+    /**
+     * @return Evaluation of the position after the move, <code>null</code> if none
+     */
+    public String getEval(int moveNo) {
+        return evalMap.get(moveNo);
+    }
+
+    public Map<Integer, String> getEvalMap() {
+        return evalMap;
+    }
+
+    public Map<Integer, String> getCommentsMap() {
+        return commentsMap;
+    }
+
+    public Map<Integer, String> getAlternateMoveSequence() {
+        return alternateMoveSequence;
+    }
+
+    public Map<Integer, ChessAnnotation> getAnnotationMap() {
+        return annotationMap;
+    }
+}
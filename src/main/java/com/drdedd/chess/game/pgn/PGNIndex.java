@@ -0,0 +1,431 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.ParsedGame;
+import com.drdedd.chess.misc.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Random access to the games of a PGN file through a sidecar offset index (<code>games.pgn.idx</code>), both files are memory mapped<br>
+ * The index is built by one scan of the file and updated incrementally when games are appended, see {@link PGNIndex#update(Path)}<br>
+ * Index layout, big endian:<br>
+ * Header ({@link PGNIndex#HEADER_BYTES} bytes) - Magic, bytes of the PGN file indexed, number of games, CRC32 of the first bytes of the PGN file<br>
+ * Record of each game ({@link PGNIndex#RECORD_BYTES} bytes) - Offset (long), length (int), date as <code>yyyyMMdd</code> (int),
+ * White and Black Elo (short), ECO (3 ASCII bytes), result (byte)<br>
+ * Games are split the same way as {@link PGNReader}
+ */
+public class PGNIndex implements Closeable {
+    private static final String TAG = "PGNIndex";
+    public static final String EXTENSION = ".idx";
+    public static final int HEADER_BYTES = 32, RECORD_BYTES = 24;
+    private static final long MAGIC = 0x5047_4E49_4458_0001L;
+    /**
+     * Bytes at the start of the PGN file covered by the checksum, detects a file replaced by another one
+     */
+    private static final int CHECKSUM_BYTES = 4096;
+    private static final byte RESULT_ONGOING = 0, RESULT_WHITE_WON = 1, RESULT_BLACK_WON = 2, RESULT_DRAW = 3;
+    private static final String[] RESULTS = {PGN.RESULT_ONGOING, PGN.RESULT_WHITE_WON, PGN.RESULT_BLACK_WON, PGN.RESULT_DRAW};
+    private final MappedFile pgn, index;
+    private final long size;
+
+    private PGNIndex(Path path) throws IOException {
+        pgn = new MappedFile(path);
+        try {
+            index = new MappedFile(indexPath(path));
+        } catch (IOException | RuntimeException e) {
+//          The PGN is already mapped, it is not closed by the caller
+            try {
+                pgn.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        size = index.getLong(16);
+    }
+
+    /**
+     * Updates the index of the file and maps both files
+     *
+     * @param path PGN file, the index is written next to it
+     */
+    public static PGNIndex open(Path path) throws IOException {
+        update(path);
+        return new PGNIndex(path);
+    }
+
+    /**
+     * @return Path of the index of the PGN file
+     */
+    public static Path indexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Builds the index or brings it up to date<br>
+     * Only the bytes after the last indexed game are scanned when the file has grown, a game which was not terminated by a result
+     * is indexed again as it may have been continued. The index is rebuilt if the file shrank or its start changed
+     *
+     * @return Number of games added to the index
+     */
+    public static long update(Path path) throws IOException {
+        try (FileChannel pgnChannel = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            long start = System.nanoTime(), resume = 0, games = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (indexChannel.read(header, 0) == HEADER_BYTES) {
+                header.flip();
+                long magic = header.getLong(), indexed = header.getLong(), count = header.getLong(), checksum = header.getLong();
+                if (magic == MAGIC && indexed <= pgnChannel.size() && indexChannel.size() >= HEADER_BYTES + count * RECORD_BYTES
+                        && checksum(pgnChannel, indexed) == checksum) {
+                    resume = indexed;
+                    games = count;
+                }
+            }
+//          Records of a game which was not terminated are written again
+            ByteBuffer offset = ByteBuffer.allocate(8);
+            while (games > 0 && indexChannel.read(offset.clear(), HEADER_BYTES + (games - 1) * RECORD_BYTES) == 8 && offset.getLong(0) >= resume)
+                games--;
+            if (resume == pgnChannel.size() && games > 0) return 0;
+
+            indexChannel.truncate(HEADER_BYTES + games * RECORD_BYTES);
+            GameScanner scanner = new GameScanner(indexChannel, HEADER_BYTES + games * RECORD_BYTES);
+//          The stream is not closed, closing it would close the channel
+            resume = scanner.scan(Channels.newInputStream(pgnChannel.position(resume)), resume);
+
+            header.clear();
+            header.putLong(MAGIC).putLong(resume).putLong(games + scanner.games).putLong(checksum(pgnChannel, resume)).flip();
+            indexChannel.write(header, 0);
+            Log.printTime(TAG + String.format(" indexing %,d games", scanner.games), System.nanoTime() - start);
+            return scanner.games;
+        }
+    }
+
+    private static long checksum(FileChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHECKSUM_BYTES, length));
+        while (buffer.hasRemaining()) if (channel.read(buffer, buffer.position()) == -1) break;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * @return Number of games indexed
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return Byte offset of the game in the PGN file
+     */
+    public long offset(long game) {
+        return index.getLong(record(game));
+    }
+
+    /**
+     * @return Length of the game in bytes
+     */
+    public int length(long game) {
+        return index.getInt(record(game) + 8);
+    }
+
+    /**
+     * @return Date of the game as <code>yyyyMMdd</code>, unknown parts are <code>0</code>
+     */
+    public int date(long game) {
+        return index.getInt(record(game) + 12);
+    }
+
+    /**
+     * @return Elo of White, <code>0</code> if unknown
+     */
+    public int whiteElo(long game) {
+        return index.getShort(record(game) + 16);
+    }
+
+    /**
+     * @return Elo of Black, <code>0</code> if unknown
+     */
+    public int blackElo(long game) {
+        return index.getShort(record(game) + 18);
+    }
+
+    /**
+     * @return ECO code of the game, empty if unknown
+     */
+    public String eco(long game) {
+        long record = record(game);
+        if (index.get(record + 20) == 0) return "";
+        return new String(new byte[]{index.get(record + 20), index.get(record + 21), index.get(record + 22)}, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return Result of the game from its tags, {@link PGN#RESULT_ONGOING} if unknown
+     */
+    public String result(long game) {
+        return RESULTS[index.get(record(game) + 23)];
+    }
+
+    /**
+     * @return Read only view of the bytes of the game in the mapped PGN file
+     */
+    public ByteBuffer slice(long game) {
+        return pgn.slice(offset(game), length(game));
+    }
+
+    /**
+     * @return PGN of the game
+     */
+    public String game(long game) {
+        return StandardCharsets.UTF_8.decode(slice(game)).toString();
+    }
+
+    /**
+     * @param from First game, inclusive
+     * @param to   Last game, exclusive
+     * @return PGN of the games in the range
+     */
+    public List<String> games(long from, long to) {
+        List<String> games = new ArrayList<>((int) Math.max(0, to - from));
+        for (long game = from; game < to; game++) games.add(game(game));
+        return games;
+    }
+
+    /**
+     * @return Parsed game, <code>null</code> if the game is invalid
+     */
+    public ParsedGame parse(long game) {
+        PGNParser parser = new PGNParser(game(game));
+        parser.parse();
+        return parser.getParsedGame();
+    }
+
+    private long record(long game) {
+        if (game < 0 || game >= size) throw new IndexOutOfBoundsException("Game " + game + " of " + size);
+        return HEADER_BYTES + game * RECORD_BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            pgn.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Splits the bytes of the PGN into games line by line, tracking comments and variations like {@link PGNReader}, and writes the records
+     */
+    private static class GameScanner {
+        private final FileChannel indexChannel;
+        private final ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 4096);
+        private long indexPosition, games;
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private boolean inComment, movesSeen, resultSeen;
+        private int depth;
+        private final byte[] eco = new byte[3];
+        private int date;
+        private short whiteElo, blackElo;
+        private byte result;
+
+        private GameScanner(FileChannel indexChannel, long indexPosition) {
+            this.indexChannel = indexChannel;
+            this.indexPosition = indexPosition;
+        }
+
+        /**
+         * @return Offset to resume the next scan from, the start of a game not terminated by a result or the end of the input
+         */
+        private long scan(InputStream inputStream, long position) throws IOException {
+            byte[] buffer = new byte[1 << 16];
+            long lineStart = position, gameStart = -1;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b != '\n') {
+                        if (lineLength == line.length) line = Arrays.copyOf(line, lineLength * 2);
+                        line[lineLength++] = b;
+                        continue;
+                    }
+                    long next = position + i + 1;
+                    gameStart = line(gameStart, lineStart, next);
+                    lineStart = next;
+                    lineLength = 0;
+                }
+                position += read;
+            }
+            if (lineLength > 0) gameStart = line(gameStart, lineStart, position);
+            if (gameStart != -1) emit(gameStart, position);
+            flush();
+            return gameStart == -1 ? position : gameStart;
+        }
+
+        /**
+         * Processes one line
+         *
+         * @return Start of the current game, <code>-1</code> between games
+         */
+        private long line(long gameStart, long lineStart, long next) throws IOException {
+            boolean tagLine = !inComment && isTagLine();
+            if (gameStart != -1 && tagLine && movesSeen) {
+                emit(gameStart, lineStart);
+                gameStart = -1;
+            }
+            if (gameStart == -1) {
+                if (lineLength > 0 && line[0] == '%' || isBlank()) return -1;
+                gameStart = lineStart;
+                reset();
+            }
+            if (lineLength > 0 && line[0] == '%') return gameStart;
+            if (tagLine) {
+                readTags();
+                return gameStart;
+            }
+            scanLine();
+            if (!resultSeen) return gameStart;
+            emit(gameStart, next);
+            return -1;
+        }
+
+        private void reset() {
+            inComment = movesSeen = resultSeen = false;
+            depth = date = 0;
+            whiteElo = blackElo = 0;
+            result = RESULT_ONGOING;
+            Arrays.fill(eco, (byte) 0);
+        }
+
+        private void scanLine() {
+            for (int i = 0; i < lineLength; i++) {
+                byte b = line[i];
+                if (inComment) {
+                    if (b == '}') inComment = false;
+                    continue;
+                }
+                if (b == '{') inComment = true;
+                else if (b == ';') return;
+                else if (b == '(') depth++;
+                else if (b == ')') depth = Math.max(0, depth - 1);
+                else if (!isWhitespace(b)) {
+                    int start = i;
+                    while (i + 1 < lineLength && isTokenByte(line[i + 1])) i++;
+                    movesSeen = true;
+                    if (depth == 0 && isResult(start, i + 1)) resultSeen = true;
+                }
+            }
+        }
+
+        private void readTags() {
+            PGNLexer lexer = new PGNLexer(line, 0, lineLength);
+            for (PGNLexer.TokenType type; (type = lexer.next()) != PGNLexer.TokenType.END; ) {
+                if (type != PGNLexer.TokenType.TAG) continue;
+                String value = lexer.tagValue();
+                switch (lexer.tagName()) {
+                    case PGN.TAG_WHITE_ELO -> whiteElo = elo(value);
+                    case PGN.TAG_BLACK_ELO -> blackElo = elo(value);
+                    case PGN.TAG_DATE -> date = date(value);
+                    case PGN.TAG_RESULT -> result = switch (value) {
+                        case PGN.RESULT_WHITE_WON -> RESULT_WHITE_WON;
+                        case PGN.RESULT_BLACK_WON -> RESULT_BLACK_WON;
+                        case PGN.RESULT_DRAW -> RESULT_DRAW;
+                        default -> RESULT_ONGOING;
+                    };
+                    case PGN.TAG_ECO -> {
+                        if (value.length() == 3) for (int i = 0; i < 3; i++) eco[i] = (byte) value.charAt(i);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void emit(long gameStart, long gameEnd) throws IOException {
+            if (!records.hasRemaining()) flush();
+            records.putLong(gameStart).putInt((int) (gameEnd - gameStart)).putInt(date).putShort(whiteElo).putShort(blackElo).put(eco).put(result);
+            games++;
+        }
+
+        private void flush() throws IOException {
+            records.flip();
+            while (records.hasRemaining()) indexPosition += indexChannel.write(records, indexPosition);
+            records.clear();
+        }
+
+        private boolean isTagLine() {
+            for (int i = 0; i < lineLength; i++) if (!isWhitespace(line[i])) return line[i] == '[';
+            return false;
+        }
+
+        private boolean isBlank() {
+            for (int i = 0; i < lineLength; i++) if (!isWhitespace(line[i])) return false;
+            return true;
+        }
+
+        private boolean isResult(int start, int end) {
+            return switch (end - start) {
+                case 1 -> line[start] == '*';
+                case 3 -> matches(start, PGN.RESULT_WHITE_WON) || matches(start, PGN.RESULT_BLACK_WON);
+                case 7 -> matches(start, PGN.RESULT_DRAW);
+                default -> false;
+            };
+        }
+
+        private boolean matches(int start, String word) {
+            for (int i = 0; i < word.length(); i++) if (line[start + i] != word.charAt(i)) return false;
+            return true;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+        }
+
+        private static boolean isTokenByte(byte b) {
+            return !isWhitespace(b) && b != '{' && b != '}' && b != '(' && b != ')' && b != ';';
+        }
+
+        private static short elo(String value) {
+            if (value.isEmpty() || value.length() > 4) return 0;
+            short elo = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch < '0' || ch > '9') return 0;
+                elo = (short) (elo * 10 + ch - '0');
+            }
+            return elo;
+        }
+
+        /**
+         * @return <code>yyyyMMdd</code> of a PGN date (<code>2024.03.15</code>), unknown parts (<code>??</code>) are <code>0</code>
+         */
+        private static int date(String value) {
+            if (value.length() != 10 || value.charAt(4) != '.' || value.charAt(7) != '.') return 0;
+            return part(value, 0, 4) * 10000 + part(value, 5, 7) * 100 + part(value, 8, 10);
+        }
+
+        private static int part(String value, int start, int end) {
+            int part = 0;
+            for (int i = start; i < end; i++) {
+                char ch = value.charAt(i);
+                if (ch < '0' || ch > '9') return 0;
+                part = part * 10 + ch - '0';
+            }
+            return part;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.ParsedGame;
+import com.drdedd.chess.misc.Log;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bulk ingestion of multi-game PGN input in three stages:<br>
+ * 1. The calling thread splits the input into games with {@link PGNReader#nextGame()}, gzip-compressed files are decompressed ahead of it
+ * on a {@link DecompressionStage}<br>
+ * 2. Games are validated and replayed in parallel on the executor, each game on its own {@link PGNParser}<br>
+ * 3. Results are handed to the consumer on the calling thread, in input order or as they complete<br>
+ * At most <code>maxInFlight</code> games are split but not yet consumed, the splitter waits for the consumer when the limit is reached,
+ * so memory stays bounded however large the input is<br>
+ * An ingestor runs one input at a time, the counters and the {@link IngestReport report} are those of the last run<br>
+ * Debug logging should be disabled with {@link Log#setDebug(boolean)} for bulk runs, every message is written to the shared <code>System.out</code>
+ */
+public class PGNIngestor implements Closeable {
+    private static final String TAG = "PGNIngestor";
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final boolean ordered;
+    /**
+     * Number of games read from the input
+     */
+    @Getter
+    private long gamesRead;
+    /**
+     * Number of games parsed
+     */
+    @Getter
+    private long gamesParsed;
+    /**
+     * Number of games which could not be parsed
+     */
+    @Getter
+    private long gamesFailed;
+    /**
+     * Throughput and stage utilisation of the last run, <code>null</code> before the first run
+     */
+    @Getter
+    private IngestReport report;
+    private final LongAdder parseNanos = new LongAdder();
+    private long splitNanos, consumeNanos;
+
+    /**
+     * @param executor    Executor running the parse stage, shut down when the ingestor is closed
+     * @param maxInFlight Maximum number of games split but not yet consumed
+     * @param ordered     Results are consumed in input order, otherwise in completion order
+     */
+    public PGNIngestor(ExecutorService executor, int maxInFlight, boolean ordered) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Ingestor on a fork-join pool, up to 4 games per worker are in flight
+     *
+     * @param workers Number of worker threads
+     */
+    public static PGNIngestor withWorkers(int workers, boolean ordered) {
+        return new PGNIngestor(new ForkJoinPool(workers), workers * 4, ordered);
+    }
+
+    /**
+     * Ingestor which parses every game on a new virtual thread
+     *
+     * @param maxInFlight Maximum number of games split but not yet consumed
+     */
+    public static PGNIngestor withVirtualThreads(int maxInFlight, boolean ordered) {
+        return new PGNIngestor(Executors.newVirtualThreadPerTaskExecutor(), maxInFlight, ordered);
+    }
+
+    /**
+     * Ingests the PGN file, a gzip-compressed file is decompressed on its own thread while the games are split and parsed
+     *
+     * @see PGNIngestor#ingest(PGNReader, Consumer)
+     */
+    public long ingest(Path path, Consumer<IngestedGame> consumer) throws IOException, InterruptedException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+        DecompressionStage stage = null;
+        try {
+            if (PGNReader.isGzip(input)) input = stage = DecompressionStage.gzip(input);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        try (PGNReader reader = new PGNReader(input)) {
+            return ingest(reader, consumer, stage, Files.size(path));
+        }
+    }
+
+    /**
+     * Splits, parses and consumes every remaining game of the reader
+     *
+     * @param consumer Receives the result of every game, valid or not, on the calling thread
+     * @return Number of games read
+     * @throws java.io.UncheckedIOException If the input cannot be read
+     * @throws InterruptedException         If the calling thread is interrupted while waiting for a result
+     */
+    public long ingest(PGNReader reader, Consumer<IngestedGame> consumer) throws InterruptedException {
+        return ingest(reader, consumer, null, 0);
+    }
+
+    /**
+     * @param stage      Decompression stage feeding the reader, <code>null</code> for plain input
+     * @param inputBytes Size of the input, <code>0</code> if unknown
+     */
+    private long ingest(PGNReader reader, Consumer<IngestedGame> consumer, DecompressionStage stage, long inputBytes) throws InterruptedException {
+        gamesRead = gamesParsed = gamesFailed = 0;
+        splitNanos = consumeNanos = 0;
+        parseNanos.reset();
+        long characters = reader.getCharactersRead(), start = System.nanoTime();
+        if (ordered) ingestOrdered(reader, consumer);
+        else ingestUnordered(reader, consumer);
+        long wallNanos = System.nanoTime() - start;
+
+//      Time the splitter waited for decompressed input is not splitting
+        if (stage != null) splitNanos -= stage.getWaitNanos();
+        report = new IngestReport(gamesRead, gamesFailed, inputBytes, reader.getCharactersRead() - characters, wallNanos,
+                stage == null ? 0 : stage.getBusyNanos(), splitNanos, parseNanos.sum(), consumeNanos);
+        Log.i(TAG, " ingest: " + report);
+        return gamesRead;
+    }
+
+    /**
+     * @return PGN of the next game, <code>null</code> at the end of the input
+     */
+    private String split(PGNReader reader) {
+        long start = System.nanoTime();
+        String pgnContent = reader.nextGame();
+        splitNanos += System.nanoTime() - start;
+        return pgnContent;
+    }
+
+    /**
+     * Futures are queued in input order, results which complete behind a slower game wait for it
+     */
+    private void ingestOrdered(PGNReader reader, Consumer<IngestedGame> consumer) throws InterruptedException {
+        ArrayDeque<Future<IngestedGame>> window = new ArrayDeque<>(maxInFlight);
+        String pgnContent;
+        while ((pgnContent = split(reader)) != null) {
+            if (window.size() == maxInFlight) consume(window.poll(), consumer);
+            window.add(submit(gamesRead++, pgnContent, reader.getDictionary()));
+            while (!window.isEmpty() && window.peek().isDone()) consume(window.poll(), consumer);
+        }
+        while (!window.isEmpty()) consume(window.poll(), consumer);
+    }
+
+    private void ingestUnordered(PGNReader reader, Consumer<IngestedGame> consumer) throws InterruptedException {
+        CompletionService<IngestedGame> completed = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        String pgnContent;
+        while ((pgnContent = split(reader)) != null) {
+            if (inFlight == maxInFlight) {
+                consume(completed.take(), consumer);
+                inFlight--;
+            }
+            long index = gamesRead++;
+            String content = pgnContent;
+            completed.submit(() -> parse(index, content, reader.getDictionary()));
+            inFlight++;
+            for (Future<IngestedGame> done; (done = completed.poll()) != null; inFlight--) consume(done, consumer);
+        }
+        for (; inFlight > 0; inFlight--) consume(completed.take(), consumer);
+    }
+
+    private Future<IngestedGame> submit(long index, String pgnContent, TagDictionary dictionary) {
+        return executor.submit(() -> parse(index, pgnContent, dictionary));
+    }
+
+    private void consume(Future<IngestedGame> future, Consumer<IngestedGame> consumer) throws InterruptedException {
+        IngestedGame game;
+        try {
+            game = future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parse stage failed", e.getCause());
+        }
+        if (game.isValid()) gamesParsed++;
+        else gamesFailed++;
+        long start = System.nanoTime();
+        consumer.accept(game);
+        consumeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Parse stage of one game, errors are reported in the result instead of failing the run
+     */
+    private IngestedGame parse(long index, String pgnContent, TagDictionary dictionary) {
+        long start = System.nanoTime();
+        try {
+            PGNParser parser = new PGNParser(pgnContent, dictionary);
+            parser.parse();
+            ParsedGame parsedGame = parser.getParsedGame();
+            if (parsedGame != null) return new IngestedGame(index, parsedGame, null, null);
+            return new IngestedGame(index, null, parser.getError(), pgnContent);
+        } catch (RuntimeException e) {
+            Log.e(TAG, " parse: Error in game " + index, e);
+            return new IngestedGame(index, null, e.toString(), pgnContent);
+        } finally {
+            parseNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Shuts down the executor
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,393 @@
+package com.drdedd.chess.game.pgn;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand written single pass lexer of PGN text, emits typed tokens without regular expressions or per word strings<br>
+ * The lexer reads from any <code>CharSequence</code> (<code>String</code>, <code>StringBuilder</code>, <code>CharBuffer</code>) or from ASCII bytes,
+ * the current token is exposed as offsets into the input and only converted to a <code>String</code> on request
+ *
+ * @see <a href="https://www.thechessdrum.net/PGN_Reference.txt">PGN specification</a>
+ */
+public class PGNLexer {
+
+    /**
+     * Types of PGN tokens
+     */
+    public enum TokenType {
+        /**
+         * Tag pair <code>[Name "Value"]</code>, see {@link PGNLexer#tagName()} and {@link PGNLexer#tagValue()}
+         */
+        TAG,
+        /**
+         * Move number indication <code>12.</code> or <code>12...</code>
+         */
+        MOVE_NUMBER,
+        /**
+         * Move in SAN with optional check and annotation suffixes, see {@link PGNLexer#annotation()}
+         */
+        SAN,
+        /**
+         * Numeric annotation glyph <code>$n</code>
+         */
+        NAG,
+        /**
+         * Brace comment <code>{...}</code> or rest of line comment <code>;...</code>, see {@link PGNLexer#commentText()}
+         */
+        COMMENT,
+        VARIATION_START, VARIATION_END,
+        /**
+         * Game termination marker <code>1-0</code>, <code>0-1</code>, <code>1/2-1/2</code> or <code>*</code>
+         */
+        RESULT,
+        /**
+         * Word which is not a valid PGN token
+         */
+        INVALID,
+        /**
+         * End of the input
+         */
+        END
+    }
+
+    private final CharSequence input;
+    private final int end;
+    private int position;
+    private TokenType type;
+    private int start, tokenEnd;
+    /**
+     * Token specific offsets: tag value or comment text, end of the tag name, start of the SAN annotation suffix
+     */
+    private int innerStart, innerEnd, nameEnd, annotationStart;
+
+    /**
+     * @param input PGN text
+     */
+    public PGNLexer(CharSequence input) {
+        this(input, 0, input.length());
+    }
+
+    /**
+     * @param input  PGN text
+     * @param offset Start of the text to read
+     * @param length Number of characters to read
+     */
+    public PGNLexer(CharSequence input, int offset, int length) {
+        this.input = input;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Lexer over ASCII (or Latin-1) bytes, each byte is read as one character
+     */
+    public PGNLexer(byte[] bytes, int offset, int length) {
+        this(new Latin1View(bytes, offset, length));
+    }
+
+    /**
+     * Reads the next token
+     *
+     * @return Type of the token, {@link TokenType#END} at the end of the input
+     */
+    public TokenType next() {
+        while (position < end && isWhitespace(input.charAt(position))) position++;
+        start = position;
+        if (position == end) {
+            tokenEnd = position;
+            return type = TokenType.END;
+        }
+
+        char ch = input.charAt(position);
+        type = switch (ch) {
+            case '[' -> tag();
+            case '{' -> braceComment();
+            case ';' -> lineComment();
+            case '(' -> single(TokenType.VARIATION_START);
+            case ')' -> single(TokenType.VARIATION_END);
+            case '$' -> nag();
+            case '*' -> single(TokenType.RESULT);
+            default -> ch >= '0' && ch <= '9' ? moveNumber() : san();
+        };
+        tokenEnd = position;
+        return type;
+    }
+
+    /**
+     * @return Type of the current token
+     */
+    public TokenType type() {
+        return type;
+    }
+
+    /**
+     * @return Offset of the first character of the current token
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return Offset after the last character of the current token
+     */
+    public int end() {
+        return tokenEnd;
+    }
+
+    /**
+     * @return Text of the current token
+     */
+    public String text() {
+        return input.subSequence(start, tokenEnd).toString();
+    }
+
+    /**
+     * @return Name of the current {@link TokenType#TAG} token
+     */
+    public String tagName() {
+        return input.subSequence(start + 1, nameEnd).toString();
+    }
+
+    /**
+     * @return Value of the current {@link TokenType#TAG} token, with the escapes removed
+     */
+    public String tagValue() {
+        StringBuilder value = new StringBuilder(innerEnd - innerStart);
+        for (int i = innerStart; i < innerEnd; i++) {
+            char ch = input.charAt(i);
+            if (ch == '\\' && i + 1 < innerEnd) ch = input.charAt(++i);
+            value.append(ch);
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return Text of the current {@link TokenType#COMMENT} token without the delimiters
+     */
+    public String commentText() {
+        return input.subSequence(innerStart, innerEnd).toString();
+    }
+
+    /**
+     * @return Move of the current {@link TokenType#SAN} token without the annotation suffix
+     */
+    public String move() {
+        return input.subSequence(start, annotationStart).toString();
+    }
+
+    /**
+     * @return Annotation suffix (<code>!!</code>, <code>?!</code>, ...) of the current {@link TokenType#SAN} token, empty if none
+     */
+    public String annotation() {
+        return input.subSequence(annotationStart, tokenEnd).toString();
+    }
+
+    /**
+     * @return Number of the current {@link TokenType#NAG} or {@link TokenType#MOVE_NUMBER} token
+     */
+    public int number() {
+        int value = 0;
+        for (int i = type == TokenType.NAG ? start + 1 : start; i < tokenEnd; i++) {
+            char ch = input.charAt(i);
+            if (ch < '0' || ch > '9') break;
+            value = value * 10 + ch - '0';
+        }
+        return value;
+    }
+
+    private TokenType single(TokenType tokenType) {
+        position++;
+        return tokenType;
+    }
+
+    /**
+     * <code>[Name "Value"]</code>, the value may contain escaped quotes and backslashes
+     */
+    private TokenType tag() {
+        position++;
+        while (position < end && isSymbolChar(input.charAt(position))) position++;
+        nameEnd = position;
+        if (nameEnd == start + 1) return skipTag();
+        while (position < end && isWhitespace(input.charAt(position))) position++;
+        if (position == end || input.charAt(position) != '"') return skipTag();
+        innerStart = ++position;
+        while (position < end && input.charAt(position) != '"') {
+            if (input.charAt(position) == '\\') position++;
+            position++;
+        }
+        if (position >= end) return skipTag();
+        innerEnd = position++;
+        while (position < end && isWhitespace(input.charAt(position))) position++;
+        if (position == end || input.charAt(position) != ']') return skipTag();
+        position++;
+        return TokenType.TAG;
+    }
+
+    /**
+     * Skips a malformed tag up to its closing bracket or the end of the line
+     */
+    private TokenType skipTag() {
+        while (position < end && input.charAt(position) != ']' && input.charAt(position) != '\n') position++;
+        if (position < end && input.charAt(position) == ']') position++;
+        return TokenType.INVALID;
+    }
+
+    private TokenType braceComment() {
+        innerStart = ++position;
+        while (position < end && input.charAt(position) != '}') position++;
+        innerEnd = position;
+        if (position < end) position++;
+        return TokenType.COMMENT;
+    }
+
+    private TokenType lineComment() {
+        innerStart = ++position;
+        while (position < end && input.charAt(position) != '\n' && input.charAt(position) != '\r') position++;
+        innerEnd = position;
+        return TokenType.COMMENT;
+    }
+
+    private TokenType nag() {
+        position++;
+        int digits = position;
+        while (position < end && isDigit(input.charAt(position))) position++;
+        if (position == digits || !isDelimiter(position)) return skipInvalid();
+        return TokenType.NAG;
+    }
+
+    /**
+     * Move number (<code>12.</code>, <code>12...</code>) or a result (<code>1-0</code>, <code>0-1</code>, <code>1/2-1/2</code>)
+     */
+    private TokenType moveNumber() {
+        if (matches("1/2-1/2") || matches("1-0") || matches("0-1")) return TokenType.RESULT;
+        while (position < end && isDigit(input.charAt(position))) position++;
+        if (position == end || input.charAt(position) != '.') return skipInvalid();
+        while (position < end && input.charAt(position) == '.') position++;
+        return TokenType.MOVE_NUMBER;
+    }
+
+    /**
+     * Validates <code>[KQRBNP]?[a-h]?[1-8]?x?[a-h][1-8](=?[QRBN])?</code>, <code>O-O</code> or <code>O-O-O</code>,
+     * followed by an optional <code>+</code> or <code>#</code> and an optional annotation
+     */
+    private TokenType san() {
+        int i = position;
+        if (matchesAt(i, "O-O-O")) i += 5;
+        else if (matchesAt(i, "O-O")) i += 3;
+        else {
+            if (i < end && "KQRBNP".indexOf(input.charAt(i)) != -1) i++;
+            int squareStart = i;
+            // Up to 2 disambiguation characters and a capture before the destination square
+            int destination = -1;
+            for (int j = i; j + 1 < end && j <= i + 3; j++)
+                if (isFile(input.charAt(j)) && isRow(input.charAt(j + 1)) && !isSquareFollowed(j + 2)) {
+                    destination = j;
+                    break;
+                }
+            if (destination == -1 || !isDisambiguation(squareStart, destination)) return skipInvalid();
+            i = destination + 2;
+            if (i < end && input.charAt(i) == '=') i++;
+            if (i < end && "QRBN".indexOf(input.charAt(i)) != -1) i++;
+            else if (i > 0 && input.charAt(i - 1) == '=') return skipInvalid();
+        }
+        if (i < end && (input.charAt(i) == '+' || input.charAt(i) == '#')) i++;
+        annotationStart = i;
+        if (i < end && (input.charAt(i) == '!' || input.charAt(i) == '?')) {
+            i++;
+            if (i < end && (input.charAt(i) == '!' || input.charAt(i) == '?')) i++;
+        }
+        if (!isDelimiter(i)) return skipInvalid();
+        position = i;
+        return TokenType.SAN;
+    }
+
+    /**
+     * A file followed by a row is the destination unless another square follows it (<code>Nb1d2</code>, <code>Ra1xa8</code>)
+     */
+    private boolean isSquareFollowed(int i) {
+        if (i < end && input.charAt(i) == 'x') i++;
+        return i + 1 < end && isFile(input.charAt(i)) && isRow(input.charAt(i + 1));
+    }
+
+    /**
+     * Characters between the piece and the destination: optional file, optional row, optional <code>x</code>
+     */
+    private boolean isDisambiguation(int from, int to) {
+        int i = from;
+        if (i < to && isFile(input.charAt(i))) i++;
+        if (i < to && isRow(input.charAt(i))) i++;
+        if (i < to && input.charAt(i) == 'x') i++;
+        return i == to;
+    }
+
+    /**
+     * Skips to the end of the word
+     */
+    private TokenType skipInvalid() {
+        position = Math.max(position, start + 1);
+        while (position < end && !isWhitespace(input.charAt(position))) position++;
+        return TokenType.INVALID;
+    }
+
+    private boolean matches(String word) {
+        if (!matchesAt(position, word) || !isDelimiter(position + word.length())) return false;
+        position += word.length();
+        return true;
+    }
+
+    private boolean matchesAt(int i, String word) {
+        if (i + word.length() > end) return false;
+        for (int j = 0; j < word.length(); j++) if (input.charAt(i + j) != word.charAt(j)) return false;
+        return true;
+    }
+
+    /**
+     * Tokens end at whitespace, the end of the input or the start of a comment or variation
+     */
+    private boolean isDelimiter(int i) {
+        if (i >= end) return true;
+        char ch = input.charAt(i);
+        return isWhitespace(ch) || ch == '{' || ch == ';' || ch == '(' || ch == ')';
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t' || ch == '\f';
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isFile(char ch) {
+        return ch >= 'a' && ch <= 'h';
+    }
+
+    private static boolean isRow(char ch) {
+        return ch >= '1' && ch <= '8';
+    }
+
+    private static boolean isSymbolChar(char ch) {
+        return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch >= '0' && ch <= '9' || ch == '_' || ch == '+' || ch == '#' || ch == '=' || ch == ':' || ch == '-';
+    }
+
+    /**
+     * Read-only view of bytes as characters, the bytes are only copied when a token is converted to a <code>String</code>
+     */
+    private record Latin1View(byte[] bytes, int offset, int length) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, offset + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
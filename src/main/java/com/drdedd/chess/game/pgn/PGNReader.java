@@ -0,0 +1,337 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.ParsedGame;
+import com.drdedd.chess.misc.Log;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reader of multi-game PGN files, games are split and parsed one at a time as they are iterated<br>
+ * A game ends at a result token (<code>1-0</code>, <code>0-1</code>, <code>1/2-1/2</code>, <code>*</code>) outside comments and variations,
+ * or where the tag section of the next game starts<br>
+ * Only the text of the current game is held in memory, games which fail to parse are skipped and counted<br>
+ * With a {@link PGNReader#setFilter(Predicate) filter} only the tag section of each game is parsed before the filter is evaluated,
+ * the movetext of a rejected game is skipped line by line without being tokenised or parsed<br>
+ * gzip-compressed input is recognised by its magic number and decompressed on the reading thread,
+ * {@link PGNIngestor} decompresses on a separate {@link DecompressionStage} instead
+ */
+public class PGNReader implements Iterator<ParsedGame>, Closeable {
+    private static final String TAG = "PGNReader";
+    private final BufferedReader reader;
+    private final StringBuilder game = new StringBuilder();
+    /**
+     * Tag line which ended the previous game, it starts the next game
+     */
+    private String pendingLine;
+    private ParsedGame next;
+    private boolean inComment, movesSeen, resultSeen, finished;
+    private int depth;
+    /**
+     * Number of games read from the input, including skipped games
+     */
+    @Getter
+    private int gamesRead;
+    /**
+     * Number of games which could not be parsed
+     */
+    @Getter
+    private int skippedGames;
+    /**
+     * Number of games rejected by the filter, not counted in {@link PGNReader#getGamesRead()}
+     */
+    @Getter
+    private int filteredGames;
+    private Predicate<PGNData> filter;
+    /**
+     * Dictionary shared by the tags of every game read, bounded by {@link TagDictionary#MAX_SIZE}
+     */
+    @Getter
+    private final TagDictionary dictionary = new TagDictionary();
+    /**
+     * Number of characters of PGN read, line terminators are counted as one character
+     */
+    @Getter
+    private long charactersRead;
+
+    /**
+     * @param inputStream PGN in UTF-8, plain or gzip-compressed, closed with the reader
+     * @throws UncheckedIOException If the start of the input cannot be read
+     */
+    public PGNReader(InputStream inputStream) {
+        reader = new BufferedReader(new InputStreamReader(decompress(inputStream), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * @param channel PGN in UTF-8, closed with the reader
+     */
+    public PGNReader(ReadableByteChannel channel) {
+        this(Channels.newInputStream(channel));
+    }
+
+    /**
+     * @param path PGN file in UTF-8, plain or gzip-compressed
+     */
+    public static PGNReader open(Path path) throws IOException {
+        return new PGNReader(Files.newInputStream(path));
+    }
+
+    /**
+     * Streams the parsed games of the file, the file is closed when the stream is closed
+     */
+    public static Stream<ParsedGame> games(Path path) throws IOException {
+        return open(path).stream();
+    }
+
+    /**
+     * @return Input decompressed on the calling thread if it starts with the gzip magic number, otherwise the input
+     */
+    private static InputStream decompress(InputStream input) {
+        try {
+            if (!input.markSupported()) input = new BufferedInputStream(input, 1 << 16);
+            return isGzip(input) ? new GZIPInputStream(input, 1 << 16) : input;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Peeks at the first two bytes of the input
+     *
+     * @param input Input supporting <code>mark</code>
+     * @return <code>true|false</code> - Input is gzip-compressed
+     */
+    static boolean isGzip(InputStream input) throws IOException {
+        input.mark(2);
+        int first = input.read(), second = input.read();
+        input.reset();
+        return first == 0x1F && second == 0x8B;
+    }
+
+    /**
+     * @return Sequential stream of the remaining games, closing the stream closes the reader
+     */
+    public Stream<ParsedGame> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * Sets the filter evaluated on the tags of every game before its movetext is read
+     *
+     * @param filter Receives a <code>PGNData</code> holding only the tags of the game, <code>null</code> to read every game
+     * @see TagFilters
+     */
+    public void setFilter(Predicate<PGNData> filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            String pgnContent = nextGame();
+            if (pgnContent == null) return false;
+            PGNParser parser = new PGNParser(pgnContent, dictionary);
+            parser.parse();
+            next = parser.getParsedGame();
+            if (next == null) {
+                skippedGames++;
+                Log.d(TAG, " hasNext: Skipped invalid game " + gamesRead);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ParsedGame next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ParsedGame parsedGame = next;
+        next = null;
+        return parsedGame;
+    }
+
+    /**
+     * Reads the text of the next game without parsing it, games rejected by the {@link PGNReader#setFilter(Predicate) filter} are skipped
+     *
+     * @return PGN of the next game, <code>null</code> at the end of the input
+     * @throws UncheckedIOException If the input cannot be read
+     */
+    public String nextGame() {
+        try {
+            while (true) {
+                game.setLength(0);
+                inComment = movesSeen = resultSeen = false;
+                depth = 0;
+//              Headers of rejected games are not added to the dictionary
+                PGNData header = filter == null ? null : new PGNData();
+                String line = readHeader(header);
+                if (header != null && !game.isEmpty() && !filter.test(header)) {
+                    filteredGames++;
+                    if (line != null) skipMovetext(line);
+                    continue;
+                }
+                if (line != null) readMovetext(line);
+                if (game.isEmpty()) return null;
+                gamesRead++;
+                return game.toString();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the tag section of the game
+     *
+     * @param header Receives the tags, <code>null</code> if they are not needed
+     * @return First line of the movetext, <code>null</code> at the end of the input
+     */
+    private String readHeader(PGNData header) throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.startsWith("%") || game.isEmpty() && line.isBlank()) continue;
+            if (!isTagLine(line)) {
+                if (!line.isBlank()) return line;
+            } else if (header != null) {
+                PGNLexer lexer = new PGNLexer(line);
+                for (PGNLexer.TokenType type; (type = lexer.next()) != PGNLexer.TokenType.END; )
+                    if (type == PGNLexer.TokenType.TAG) header.addTag(lexer.tagName(), lexer.tagValue());
+            }
+            game.append(line).append('\n');
+        }
+        return null;
+    }
+
+    /**
+     * Reads the movetext up to the result token or the tag section of the next game
+     *
+     * @param line First line of the movetext
+     */
+    private void readMovetext(String line) throws IOException {
+        do {
+            if (!inComment && isTagLine(line) && movesSeen) {
+                pendingLine = line;
+                return;
+            }
+            if (line.startsWith("%")) continue;
+            game.append(line).append('\n');
+            scanLine(line);
+            if (resultSeen) return;
+        } while ((line = readLine()) != null);
+    }
+
+    /**
+     * Skips the movetext up to the tag section of the next game, only comments are tracked so tags inside them are not mistaken for the next game<br>
+     * Games without tags which follow a skipped game are skipped with it
+     *
+     * @param line First line of the movetext
+     */
+    private void skipMovetext(String line) throws IOException {
+        do {
+            if (!inComment && isTagLine(line)) {
+                pendingLine = line;
+                return;
+            }
+            if (!line.startsWith("%")) skipComments(line);
+        } while ((line = readLine()) != null);
+    }
+
+    /**
+     * Tracks whether the line ends inside a brace comment
+     */
+    private void skipComments(String line) {
+        int i = 0;
+        while (true) {
+            if (inComment) {
+                if ((i = line.indexOf('}', i)) == -1) return;
+                inComment = false;
+            } else {
+                int brace = line.indexOf('{', i), semicolon = line.indexOf(';', i);
+                if (brace == -1 || semicolon != -1 && semicolon < brace) return;
+                inComment = true;
+                i = brace;
+            }
+            i++;
+        }
+    }
+
+    private String readLine() throws IOException {
+        if (pendingLine != null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        }
+        if (finished) return null;
+        String line = reader.readLine();
+        if (line == null) finished = true;
+        else charactersRead += line.length() + 1;
+        return line;
+    }
+
+    /**
+     * Tracks comments and variations through the line and looks for movetext and a result token at the top level
+     */
+    private void scanLine(String line) {
+        if (!inComment && isTagLine(line)) return;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char ch = line.charAt(i);
+            if (inComment) {
+                if (ch == '}') inComment = false;
+                continue;
+            }
+            if (ch == '{') inComment = true;
+            else if (ch == ';') return;
+            else if (ch == '(') depth++;
+            else if (ch == ')') depth = Math.max(0, depth - 1);
+            else if (!Character.isWhitespace(ch)) {
+                int start = i;
+                while (i + 1 < length && isTokenChar(line.charAt(i + 1))) i++;
+                movesSeen = true;
+                if (depth == 0 && isResult(line, start, i + 1)) resultSeen = true;
+            }
+        }
+    }
+
+    private static boolean isTokenChar(char ch) {
+        return !Character.isWhitespace(ch) && ch != '{' && ch != '}' && ch != '(' && ch != ')' && ch != ';';
+    }
+
+    private static boolean isResult(String line, int start, int end) {
+        return switch (end - start) {
+            case 1 -> line.charAt(start) == '*';
+            case 3 -> line.startsWith(PGN.RESULT_WHITE_WON, start) || line.startsWith(PGN.RESULT_BLACK_WON, start);
+            case 7 -> line.startsWith(PGN.RESULT_DRAW, start);
+            default -> false;
+        };
+    }
+
+    private static boolean isTagLine(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (!Character.isWhitespace(ch)) return ch == '[';
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.drdedd.chess.game.pgn;
+
+import com.drdedd.chess.game.gameData.ChessAnnotation;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer of PGN games, the text is appended to a reusable <code>char</code> buffer which is handed to the output when full<br>
+ * Tags, SAN moves, annotations, comments (which hold the <code>[%eval]</code> of analysed games) and variations are copied from
+ * {@link PGNData} as they are, no intermediate <code>String</code> is built per game<br>
+ * For bulk export {@link PGNWriter#gzip(Path)} writes any number of games to a gzip-compressed file,
+ * memory stays at the size of the buffers whatever the number of games<br>
+ * A writer is not thread safe
+ */
+public class PGNWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 1 << 13, GZIP_BUFFER_SIZE = 1 << 16;
+    private final Writer writer;
+    private final char[] buffer;
+    private int position;
+    /**
+     * Number of games written with {@link PGNWriter#write(PGN)}
+     */
+    @Getter
+    private long gamesWritten;
+
+    /**
+     * @param writer Output of the PGN, closed with the writer
+     */
+    public PGNWriter(Writer writer) {
+        this.writer = writer;
+        buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * @param outputStream Output of the PGN in UTF-8, closed with the writer
+     */
+    public PGNWriter(OutputStream outputStream) {
+        this(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writer for bulk export to a gzip-compressed file, the file is created or truncated
+     *
+     * @param file Path of the <code>.pgn.gz</code> file
+     */
+    public static PGNWriter gzip(Path file) throws IOException {
+        return new PGNWriter(new GZIPOutputStream(Files.newOutputStream(file), GZIP_BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a complete game: tags, an empty line, the movetext with comments and annotations, the result and an empty line
+     */
+    public void write(PGN pgn) throws IOException {
+        writeTags(pgn);
+        append('\n');
+        writeMoves(pgn.getPGNData(), true);
+        String result = pgn.getResult();
+        append(result.isEmpty() ? PGN.RESULT_ONGOING : result);
+        append("\n\n");
+        gamesWritten++;
+    }
+
+    /**
+     * Writes the tags of the game, one per line, the result, termination and starting position tags are updated first
+     */
+    public void writeTags(PGN pgn) throws IOException {
+        pgn.updateTags();
+        PGNData data = pgn.getPGNData();
+        for (Map.Entry<String, String> tag : data.getTagsMap().entrySet()) {
+            append('[');
+            append(tag.getKey());
+            append(" \"");
+            appendEscaped(tag.getValue() == null ? PGN.UNKNOWN : tag.getValue());
+            append("\"]\n");
+        }
+    }
+
+    /**
+     * Writes the movetext without the result, each move is followed by a space
+     *
+     * @param commented Whether annotations, comments and alternate move sequences are written
+     */
+    public void writeMoves(PGNData data, boolean commented) throws IOException {
+        int length = data.getPlyCount();
+        for (int i = 0; i < length; i++) {
+            if (i % 2 == 0) {
+                append(i / 2 + 1);
+                append(". ");
+            }
+            append(data.getSanMove(i));
+            if (commented) {
+                ChessAnnotation annotation = data.getAnnotation(i);
+                if (annotation != null) append(annotation.getAnnotation());
+            }
+            append(' ');
+            if (!commented) continue;
+            String comment = data.getComment(i), alternateMoveSequence = data.getAlternateMoveSequence(i);
+            if (comment != null) {
+                append(comment);
+                append(' ');
+            }
+            if (alternateMoveSequence != null) {
+                append(alternateMoveSequence);
+                append(' ');
+            }
+        }
+    }
+
+    private void append(char ch) throws IOException {
+        if (position == buffer.length) drain();
+        buffer[position++] = ch;
+    }
+
+    private void append(String text) throws IOException {
+        int length = text.length(), offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) drain();
+            int count = Math.min(length - offset, buffer.length - position);
+            text.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+
+    /**
+     * Appends a tag value, escaping <code>\</code> and <code>"</code> with a backslash
+     */
+    private void appendEscaped(String value) throws IOException {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch == '\\' || ch == '"') append('\\');
+            append(ch);
+        }
+    }
+
+    /**
+     * Appends the digits of a positive number without converting it to a <code>String</code>
+     */
+    private void append(int number) throws IOException {
+        if (buffer.length - position < 10) drain();
+        int digits = 1;
+        for (int n = number; n >= 10; n /= 10) digits++;
+        for (int i = position + digits - 1; i >= position; i--, number /= 10) buffer[i] = (char) ('0' + number % 10);
+        position += digits;
+    }
+
+    /**
+     * Hands the buffered text to the output
+     */
+    private void drain() throws IOException {
+        writer.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        writer.flush();
+    }
+
+    /**
+     * Flushes the buffered text and closes the output, the gzip trailer is written here in bulk mode
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            writer.close();
+        }
+    }
+}
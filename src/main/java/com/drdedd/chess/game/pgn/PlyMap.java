@@ -0,0 +1,137 @@
+package com.drdedd.chess.game.pgn;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Sparse map keyed by ply, stored as a sorted <code>int[]</code> of plies and a parallel array of values<br>
+ * The arrays are allocated on the first entry, lookups are binary searches without boxing through {@link PlyMap#get(int)}
+ *
+ * @param <V> Type of the values
+ */
+class PlyMap<V> extends AbstractMap<Integer, V> implements Serializable {
+    private int[] plies;
+    private Object[] values;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    V get(int ply) {
+        int index = indexOf(ply);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int ply, V value) {
+        int index = indexOf(ply);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        index = -index - 1;
+        if (plies == null) {
+            plies = new int[4];
+            values = new Object[4];
+        } else if (size == plies.length) {
+            plies = Arrays.copyOf(plies, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(plies, index, plies, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        plies[index] = ply;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return Index of the ply, <code>-(insertion point) - 1</code> if absent
+     */
+    private int indexOf(int ply) {
+        if (size == 0) return -1;
+//      Entries are mostly added in ply order
+        if (plies[size - 1] < ply) return -size - 1;
+        return Arrays.binarySearch(plies, 0, size, ply);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int index) {
+        V previous = (V) values[index];
+        System.arraycopy(plies, index + 1, plies, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[--size] = null;
+        return previous;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ply ? get(ply.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer ply && indexOf(ply) >= 0;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Integer ply)) return null;
+        int index = indexOf(ply);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        plies = null;
+        values = null;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new Iterator<>() {
+                    private int next, last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Integer, V> next() {
+                        if (next >= size) throw new NoSuchElementException();
+                        last = next++;
+                        return new SimpleImmutableEntry<>(plies[last], (V) values[last]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) throw new IllegalStateException();
+                        removeAt(last);
+                        next = last;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.drdedd.chess.game.pgn;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of tag names and common tag values, every game of a batch holds references to the same strings instead of its own copies<br>
+ * Only the values of low-cardinality tags (event, result, opening code, time control, termination) are shared,
+ * free-form values such as player names, sites, dates and positions are unique to a game and are kept as they are<br>
+ * {@link TagDictionary#STANDARD} only shares the standard tag names and common values, a dictionary created for a batch
+ * (a file, an import) also shares the other names and values, up to {@link TagDictionary#MAX_SIZE} strings<br>
+ * Dictionaries are thread safe
+ */
+public class TagDictionary {
+    /**
+     * Maximum number of strings added to a dictionary, strings are returned unchanged once it is full
+     */
+    public static final int MAX_SIZE = 1 << 12;
+    private static final Map<String, String> STANDARD_STRINGS = new HashMap<>();
+    /**
+     * Tags whose values are shared
+     */
+    private static final Set<String> SHARED_VALUE_TAGS = Set.of("Event", "Result", "ECO", "TimeControl", "Termination");
+
+    static {
+        for (String string : new String[]{"Event", "Site", "Date", "Round", "White", "Black", "Result", "ECO", "Opening", "Variation",
+                "WhiteElo", "BlackElo", "WhiteTitle", "BlackTitle", "WhiteFideId", "BlackFideId", "WhiteRatingDiff", "BlackRatingDiff",
+                "TimeControl", "Termination", "FEN", "SetUp", "PlyCount", "EventDate", "UTCDate", "UTCTime", "Annotator", "AnalyzedBy",
+                "Variant", "Mode", "App", PGN.UNKNOWN, "-", "1", PGN.RESULT_WHITE_WON, PGN.RESULT_BLACK_WON, PGN.RESULT_DRAW,
+                PGN.RESULT_ONGOING, "Normal", "Time forfeit", "Abandoned", "Rules infraction", "Standard"})
+            STANDARD_STRINGS.put(string, string);
+    }
+
+    /**
+     * Dictionary of the standard tag names and common values, it never grows
+     */
+    public static final TagDictionary STANDARD = new TagDictionary(null);
+    private final ConcurrentHashMap<String, String> strings;
+
+    /**
+     * New dictionary for a batch of games
+     */
+    public TagDictionary() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    private TagDictionary(ConcurrentHashMap<String, String> strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * @return Shared instance of the tag name
+     */
+    public String internName(String name) {
+        return intern(name);
+    }
+
+    /**
+     * @param name Name of the tag
+     * @return Shared instance of the value if the tag has low-cardinality values or the value is a standard string, else the value
+     */
+    public String internValue(String name, String value) {
+        if (SHARED_VALUE_TAGS.contains(name)) return intern(value);
+        String standard = STANDARD_STRINGS.get(value);
+        return standard == null ? value : standard;
+    }
+
+    private String intern(String string) {
+        String standard = STANDARD_STRINGS.get(string);
+        if (standard != null || strings == null) return standard == null ? string : standard;
+        String shared = strings.get(string);
+        if (shared != null) return shared;
+        if (strings.size() >= MAX_SIZE) return string;
+        shared = strings.putIfAbsent(string, string);
+        return shared == null ? string : shared;
+    }
+
+    /**
+     * @return Number of strings added to the dictionary, the standard strings are not counted
+     */
+    public int size() {
+        return strings == null ? 0 : strings.size();
+    }
+}
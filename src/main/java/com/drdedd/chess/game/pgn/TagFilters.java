@@ -0,0 +1,69 @@
+package com.drdedd.chess.game.pgn;
+
+import java.util.function.Predicate;
+
+/**
+ * Common tag predicates for {@link PGNReader#setFilter(Predicate)}, combine them with <code>and</code>/<code>or</code><br>
+ * A game missing the tag, or with an unknown (<code>?</code>) value, does not match
+ */
+public class TagFilters {
+
+    /**
+     * @param from First ECO code of the range (<code>B20</code>)
+     * @param to   Last ECO code of the range, inclusive (<code>B99</code>)
+     */
+    public static Predicate<PGNData> ecoBetween(String from, String to) {
+        return data -> {
+            String eco = data.getTag(PGN.TAG_ECO, PGN.UNKNOWN);
+            return eco.length() == 3 && eco.compareTo(from) >= 0 && eco.compareTo(to) <= 0;
+        };
+    }
+
+    /**
+     * @param elo Minimum rating of both players
+     */
+    public static Predicate<PGNData> minElo(int elo) {
+        return data -> rating(data, PGN.TAG_WHITE_ELO) >= elo && rating(data, PGN.TAG_BLACK_ELO) >= elo;
+    }
+
+    /**
+     * @param name Name of the player, as White or Black, case is ignored
+     */
+    public static Predicate<PGNData> player(String name) {
+        return data -> name.equalsIgnoreCase(data.getTag(PGN.TAG_WHITE, "")) || name.equalsIgnoreCase(data.getTag(PGN.TAG_BLACK, ""));
+    }
+
+    /**
+     * Dates are compared as PGN dates (<code>yyyy.MM.dd</code>), a date with unknown month or day (<code>2024.??.??</code>)
+     * matches if its known part lies in the window
+     *
+     * @param from First date of the window, inclusive
+     * @param to   Last date of the window, inclusive
+     */
+    public static Predicate<PGNData> dateBetween(String from, String to) {
+        return data -> {
+            String date = data.getTag(PGN.TAG_DATE, PGN.UNKNOWN);
+            int known = date.indexOf('?');
+            if (known == -1) known = date.length();
+            if (known < 4) return false;
+            String prefix = date.substring(0, known);
+            return prefix.compareTo(from.substring(0, Math.min(known, from.length()))) >= 0
+                    && prefix.compareTo(to.substring(0, Math.min(known, to.length()))) <= 0;
+        };
+    }
+
+    /**
+     * @return Rating in the tag, <code>-1</code> if missing or not a number
+     */
+    private static int rating(PGNData data, String tag) {
+        String value = data.getTag(tag, "");
+        if (value.isEmpty() || value.length() > 5) return -1;
+        int rating = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            rating = rating * 10 + ch - '0';
+        }
+        return rating;
+    }
+}
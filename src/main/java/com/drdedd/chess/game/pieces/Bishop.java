@@ -1,11 +1,11 @@
 package com.drdedd.chess.game.pieces;
 
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Attacks;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
 
-import java.util.HashSet;
-
 /**
  * {@inheritDoc}
  */
@@ -24,7 +24,7 @@ public class Bishop extends Piece {
 
     @Override
     public boolean canMoveTo(GameLogicInterface gameLogicInterface, int row, int col) {
-        return getPossibleMoves(gameLogicInterface).contains(row * 8 + col);
+        return isTarget(gameLogicInterface, row, col);
     }
 
     @Override
@@ -33,21 +33,7 @@ public class Bishop extends Piece {
     }
 
     @Override
-    public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
-        HashSet<Integer> possibleMoves = new HashSet<>();
-        int i, j;
-//        Top right diagonal
-        for (i = getRow() + 1, j = getCol() + 1; i < 8 && j < 8; i++, j++)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Bottom left diagonal
-        for (i = getRow() - 1, j = getCol() - 1; i >= 0 && j >= 0; i--, j--)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Bottom right diagonal
-        for (i = getRow() - 1, j = getCol() + 1; i >= 0 && j < 8; i--, j++)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Top left diagonal
-        for (i = getRow() + 1, j = getCol() - 1; i < 8 && j >= 0; i++, j--)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-        return possibleMoves;
+    public long getAttacks(BoardModel boardModel) {
+        return Attacks.bishopAttacks(getSquareIndex(), boardModel.getOccupied());
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.drdedd.chess.game.pieces;
 
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Attacks;
+import com.drdedd.chess.game.board.Bitboards;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
@@ -32,46 +35,57 @@ public class King extends Piece {
 
     @Override
     public boolean canCapture(GameLogicInterface gameLogicInterface, Piece capturingPiece) {
-        return canMoveTo(gameLogicInterface, capturingPiece.getRow(), capturingPiece.getCol());
+        return isTarget(gameLogicInterface, capturingPiece.getRow(), capturingPiece.getCol());
     }
 
     /**
-     * Checks whether the <code>King</code> can short castle
+     * Checks whether the <code>King</code> can short castle, the king may not be in check or pass through an attacked square
      *
      * @return <code>True|False</code>
      */
     public boolean canShortCastle(GameLogicInterface gameLogicInterface) {
-        if (!getPlayer().isInCheck() && hasNotMoved() && !castled) {
+        if (getCol() == 4 && getRow() == (isWhite() ? 0 : 7) && gameLogicInterface.getBoardModel().hasCastlingRight(getPlayer(), true) && !isPathAttacked(gameLogicInterface, 1)) {
             for (int i = getCol() + 1; i < 7; i++)
                 if (gameLogicInterface.pieceAt(getRow(), i) != null) return false;
             Piece rook = gameLogicInterface.pieceAt(getRow(), 7);
-            if (rook != null) if (rook.getRank() == Rank.ROOK) return rook.hasNotMoved();
+            if (rook != null) return rook.getRank() == Rank.ROOK && rook.getPlayer() == getPlayer();
         }
         return false;
     }
 
     /**
-     * Checks whether the <code>King</code> can long castle
+     * Checks whether the <code>King</code> can long castle, the king may not be in check or pass through an attacked square
      *
      * @return <code>True|False</code>
      */
     public boolean canLongCastle(GameLogicInterface gameLogicInterface) {
-        if (!getPlayer().isInCheck() && hasNotMoved() && !castled) {
+        if (getCol() == 4 && getRow() == (isWhite() ? 0 : 7) && gameLogicInterface.getBoardModel().hasCastlingRight(getPlayer(), false) && !isPathAttacked(gameLogicInterface, -1)) {
             for (int i = getCol() - 1; i > 0; i--)
                 if (gameLogicInterface.pieceAt(getRow(), i) != null) return false;
             Piece rook = gameLogicInterface.pieceAt(getRow(), 0);
-            if (rook != null) if (rook.getRank() == Rank.ROOK) return rook.hasNotMoved();
+            if (rook != null) return rook.getRank() == Rank.ROOK && rook.getPlayer() == getPlayer();
         }
         return false;
     }
 
+    /**
+     * Checks the king's square and the two squares it passes through while castling against the opponent's attack map
+     *
+     * @param direction <code>1</code> for short castle, <code>-1</code> for long castle
+     */
+    private boolean isPathAttacked(GameLogicInterface gameLogicInterface, int direction) {
+        int square = getSquareIndex();
+        long path = Bitboards.bit(square) | Bitboards.bit(square + direction) | Bitboards.bit(square + 2 * direction);
+        return (gameLogicInterface.getBoardModel().getAttackMap(isWhite() ? Player.BLACK : Player.WHITE) & path) != 0;
+    }
+
     /**
      * Long castles the <code>King</code>
      */
     public void longCastle(GameLogicInterface gameLogicInterface) {
         Piece rook = gameLogicInterface.pieceAt(getRow(), 0);
-        rook.moveTo(getRow(), 3);
-        this.moveTo(getRow(), getCol() - 2);
+        gameLogicInterface.getBoardModel().movePiece(rook, getRow(), 3);
+        gameLogicInterface.getBoardModel().movePiece(this, getRow(), getCol() - 2);
         castled = longCastled = true;
     }
 
@@ -80,8 +94,8 @@ public class King extends Piece {
      */
     public void shortCastle(GameLogicInterface gameLogicInterface) {
         Piece rook = gameLogicInterface.pieceAt(getRow(), 7);
-        rook.moveTo(getRow(), 5);
-        this.moveTo(getRow(), getCol() + 2);
+        gameLogicInterface.getBoardModel().movePiece(rook, getRow(), 5);
+        gameLogicInterface.getBoardModel().movePiece(this, getRow(), getCol() + 2);
         castled = shortCastled = true;
     }
 
@@ -116,32 +130,21 @@ public class King extends Piece {
      * @return <code>True|False</code>
      */
     public boolean isChecked(GameLogicInterface gameLogicInterface) {
-        String TAG = "King";
-        HashSet<Piece> pieces = gameLogicInterface.getBoardModel().pieces;
-        for (Piece piece : pieces)
-            if (piece.getPlayer() != getPlayer() && !piece.isCaptured())
-                if (piece.canCapture(gameLogicInterface, this)) {
-//                    Log.d(TAG, String.format("isChecked: %s checked by %s", getPlayer(), piece.getPosition()));
-                    return true;
-                }
-        return false;
+        return gameLogicInterface.getBoardModel().isSquareAttacked(getSquareIndex(), isWhite() ? Player.BLACK : Player.WHITE);
+    }
+
+    @Override
+    public long getAttacks(BoardModel boardModel) {
+        return Attacks.kingAttacks(getSquareIndex());
     }
 
     @Override
     public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
-        HashSet<Integer> possibleMoves = new HashSet<>();
-        int row = getRow(), col = getCol(), i, j, newRow, newCol;
-        for (i = -1; i <= 1; i++)
-            for (j = -1; j <= 1; j++) {
-                newRow = row + i;
-                newCol = col + j;
-                if (newRow == row && newCol == col || newCol < 0 || newCol > 7 || newRow < 0 || newRow > 7) continue;
-                addMove(possibleMoves, gameLogicInterface.pieceAt(newRow, newCol), newRow, newCol);
-            }
-        if (!getPlayer().isInCheck() && canShortCastle(gameLogicInterface))
-            possibleMoves.add(getRow() * 8 + getCol() + 2);
-        if (!getPlayer().isInCheck() && canLongCastle(gameLogicInterface))
-            possibleMoves.add(getRow() * 8 + getCol() - 2);
+        HashSet<Integer> possibleMoves = super.getPossibleMoves(gameLogicInterface);
+        if (canShortCastle(gameLogicInterface))
+            possibleMoves.add(getSquareIndex() + 2);
+        if (canLongCastle(gameLogicInterface))
+            possibleMoves.add(getSquareIndex() - 2);
         return possibleMoves;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package com.drdedd.chess.game.pieces;
 
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Attacks;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
 
-import java.util.HashSet;
-
 /**
  * {@inheritDoc}
  */
@@ -24,7 +24,7 @@ public class Knight extends Piece {
 
     @Override
     public boolean canMoveTo(GameLogicInterface gameLogicInterface, int row, int col) {
-        return Math.abs(row - getRow()) == 2 && Math.abs(col - getCol()) == 1 || Math.abs(row - getRow()) == 1 && Math.abs(col - getCol()) == 2;
+        return (Attacks.knightAttacks(getSquareIndex()) & 1L << row * 8 + col) != 0;
     }
 
     @Override
@@ -33,21 +33,7 @@ public class Knight extends Piece {
     }
 
     @Override
-    public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
-        HashSet<Integer> possibleMoves = new HashSet<>();
-        int row = getRow(), col = getCol(), i, j, newRow, newCol;
-        for (i = -1; i <= 1; i += 2)
-            for (j = -2; j <= 2; j += 4) {
-                newRow = row + i;
-                newCol = col + j;
-                if (newCol >= 0 && newCol <= 7 && newRow >= 0 && newRow <= 7)
-                    addMove(possibleMoves, gameLogicInterface.pieceAt(newRow, newCol), newRow, newCol);
-
-                newRow = row + j;
-                newCol = col + i;
-                if (newCol >= 0 && newCol <= 7 && newRow >= 0 && newRow <= 7)
-                    addMove(possibleMoves, gameLogicInterface.pieceAt(newRow, newCol), newRow, newCol);
-            }
-        return possibleMoves;
+    public long getAttacks(BoardModel boardModel) {
+        return Attacks.knightAttacks(getSquareIndex());
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.drdedd.chess.game.pieces;
 
 
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Attacks;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
@@ -30,7 +32,7 @@ public class Pawn extends Piece {
 
     @Override
     public boolean canCapture(GameLogicInterface gameLogicInterface, Piece capturingPiece) {
-        return Math.abs(getCol() - capturingPiece.getCol()) == 1 && (capturingPiece.getRow() - getRow()) * direction == 1;
+        return (Attacks.pawnAttacks(getPlayer(), getSquareIndex()) & 1L << capturingPiece.getSquareIndex()) != 0;
     }
 
     public boolean canCaptureEnPassant(GameLogicInterface gameLogicInterface) {
@@ -40,18 +42,21 @@ public class Pawn extends Piece {
         return false;
     }
 
+    @Override
+    public long getAttacks(BoardModel boardModel) {
+        return Attacks.pawnAttacks(getPlayer(), getSquareIndex());
+    }
+
     @Override
     public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
-        HashSet<Integer> possibleMoves = new HashSet<>();
-        int col = getCol(), row = getRow(), i;
-        if (gameLogicInterface.pieceAt(row + direction, col) == null) possibleMoves.add((row + direction) * 8 + col);
-        if (!moved && gameLogicInterface.pieceAt(row + 2 * direction, col) == null && gameLogicInterface.pieceAt(row + direction, col) == null)
-            possibleMoves.add((row + 2 * direction) * 8 + col);
-        for (i = -1; i <= 1; i += 2) {
-            Piece tempPiece = gameLogicInterface.pieceAt(row + direction, col + i);
-            if (tempPiece != null)
-                if (tempPiece.getPlayer() != getPlayer()) possibleMoves.add((row + direction) * 8 + col + i);
+        BoardModel boardModel = gameLogicInterface.getBoardModel();
+        long occupied = boardModel.getOccupied(), targets = getAttacks(boardModel) & boardModel.getOccupancy(isWhite() ? Player.BLACK : Player.WHITE);
+        int square = getSquareIndex(), forward = 8 * direction;
+        if ((occupied & 1L << square + forward) == 0) {
+            targets |= 1L << square + forward;
+            if (!moved && (occupied & 1L << square + 2 * forward) == 0) targets |= 1L << square + 2 * forward;
         }
+        HashSet<Integer> possibleMoves = toPositions(targets);
         if (canCaptureEnPassant(gameLogicInterface))
             possibleMoves.add(gameLogicInterface.getBoardModel().enPassantPawn.getCol() + (gameLogicInterface.getBoardModel().enPassantPawn.getRow() + direction) * 8);
         return possibleMoves;
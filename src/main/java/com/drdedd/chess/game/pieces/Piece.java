@@ -1,5 +1,6 @@
 package com.drdedd.chess.game.pieces;
 
+import com.drdedd.chess.game.BoardModel;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
@@ -94,7 +95,8 @@ public abstract class Piece implements Serializable, Cloneable {
     }
 
     /**
-     * Moves the piece to the given position
+     * Moves the piece to the given position<br>
+     * Pieces on a board are moved with {@link com.drdedd.chess.game.BoardModel#movePiece(Piece, int, int)}
      *
      * @param row Row number of new position
      * @param col Column number of new position
@@ -126,20 +128,34 @@ public abstract class Piece implements Serializable, Cloneable {
     }
 
     /**
-     * Adds a move to possible moves of the piece
+     * @return Square index of the piece (<code>row * 8 + col</code>)
+     */
+    public int getSquareIndex() {
+        return row * 8 + col;
+    }
+
+    /**
+     * Checks whether the position is attacked by the piece and not occupied by a piece of the same player
      *
-     * @param possibleMoves    <code>HashSet</code> of possible moves of the piece
-     * @param obstructingPiece <code>Piece</code> obstructing further moves
-     * @param row              Row number of the move
-     * @param col              Column number of the move
-     * @return <code>Boolean</code> - Continue adding moves without obstruction
-     */
-    protected boolean addMove(HashSet<Integer> possibleMoves, Piece obstructingPiece, int row, int col) {
-        if (obstructingPiece == null) {
-            possibleMoves.add(row * 8 + col);
-            return true;
-        } else if (obstructingPiece.getPlayer() != getPlayer()) possibleMoves.add(row * 8 + col);
-        return false;
+     * @param row Row number
+     * @param col Column number
+     * @return <code>true|false</code>
+     */
+    protected boolean isTarget(GameLogicInterface gameLogicInterface, int row, int col) {
+        BoardModel boardModel = gameLogicInterface.getBoardModel();
+        return (getAttacks(boardModel) & ~boardModel.getOccupancy(player) & 1L << row * 8 + col) != 0;
+    }
+
+    /**
+     * Converts a bitboard of squares to a set of positions
+     *
+     * @param bitboard Bitboard of the squares
+     * @return <code>HashSet</code> of positions
+     */
+    protected static HashSet<Integer> toPositions(long bitboard) {
+        HashSet<Integer> positions = new HashSet<>();
+        for (; bitboard != 0; bitboard &= bitboard - 1) positions.add(Long.numberOfTrailingZeros(bitboard));
+        return positions;
     }
 
     /**
@@ -154,13 +170,24 @@ public abstract class Piece implements Serializable, Cloneable {
         return unicode;
     }
 
+    /**
+     * Squares attacked by the piece, looked up from the precomputed {@link com.drdedd.chess.game.board.Attacks Attacks} tables
+     *
+     * @param boardModel BoardModel of the current board
+     * @return Bitboard of the attacked squares
+     */
+    public abstract long getAttacks(BoardModel boardModel);
+
     /**
      * Finds all possible moves of the piece on the board
      *
      * @param gameLogicInterface GameLogicInterface of the current board
      * @return <code>HashSet</code> of possible positions of the piece
      */
-    public abstract HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface);
+    public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
+        BoardModel boardModel = gameLogicInterface.getBoardModel();
+        return toPositions(getAttacks(boardModel) & ~boardModel.getOccupancy(player));
+    }
 
     @Override
     public Piece clone() {
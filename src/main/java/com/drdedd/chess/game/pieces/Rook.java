@@ -1,11 +1,11 @@
 package com.drdedd.chess.game.pieces;
 
+import com.drdedd.chess.game.BoardModel;
+import com.drdedd.chess.game.board.Attacks;
 import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.interfaces.GameLogicInterface;
 
-import java.util.HashSet;
-
 /**
  * {@inheritDoc}
  */
@@ -25,7 +25,7 @@ public class Rook extends Piece {
 
     @Override
     public boolean canMoveTo(GameLogicInterface gameLogicInterface, int row, int col) {
-        return getPossibleMoves(gameLogicInterface).contains(row * 8 + col);
+        return isTarget(gameLogicInterface, row, col);
     }
 
     @Override
@@ -34,21 +34,7 @@ public class Rook extends Piece {
     }
 
     @Override
-    public HashSet<Integer> getPossibleMoves(GameLogicInterface gameLogicInterface) {
-        HashSet<Integer> possibleMoves = new HashSet<>();
-        int i, j;
-//        Column top
-        for (i = getRow() + 1, j = getCol(); i < 8; i++)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Column bottom
-        for (i = getRow() - 1, j = getCol(); i >= 0; i--)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Row right
-        for (i = getRow(), j = getCol() + 1; j < 8; j++)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-//        Row left
-        for (i = getRow(), j = getCol() - 1; j >= 0; j--)
-            if (!addMove(possibleMoves, gameLogicInterface.pieceAt(i, j), i, j)) break;
-        return possibleMoves;
+    public long getAttacks(BoardModel boardModel) {
+        return Attacks.rookAttacks(getSquareIndex(), boardModel.getOccupied());
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,25 @@
 package com.drdedd.chess.misc;
 
 public class Log {
+    /**
+     * Debug messages are printed, every message goes through the synchronized <code>System.out</code>
+     */
+    private static volatile boolean debug = true;
+
+    /**
+     * Enables or disables debug messages, bulk and parallel runs should disable them
+     */
+    public static void setDebug(boolean debug) {
+        Log.debug = debug;
+    }
+
+    /**
+     * @return Whether debug messages are printed, callers check it before formatting costly messages
+     */
+    public static boolean isDebug() {
+        return debug;
+    }
+
     public static void printTime(String task, long time) {
         String s1 = String.format("Time taken for %s : %s (%,3d ns)", task, MiscMethods.formatNanoseconds(time), time);
         String decor = "=".repeat(s1.length());
@@ -12,6 +31,14 @@ public class Log {
     }
 
     public static void d(String TAG, String message) {
+        if (!debug) return;
+        System.out.printf("%s.%s%n", TAG, message);
+    }
+
+    /**
+     * Information message, printed even when debug messages are disabled
+     */
+    public static void i(String TAG, String message) {
         System.out.printf("%s.%s%n", TAG, message);
     }
 
@@ -1,6 +1,12 @@
 package com.drdedd.chess.game;
 
+import com.drdedd.chess.game.board.Bitboards;
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.PackedPosition;
 import com.drdedd.chess.game.data.FENs;
+import com.drdedd.chess.game.gameData.Player;
 import com.drdedd.chess.game.gameData.Rank;
 import com.drdedd.chess.game.pieces.King;
 import com.drdedd.chess.game.pieces.Pawn;
@@ -9,6 +15,7 @@ import com.drdedd.chess.game.pieces.Queen;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -82,6 +89,39 @@ public class BoardModelTests {
         assertEquals(expectedFEN, fen);
     }
 
+    @Test
+    void testToFENIsCachedPerPosition() {
+        String fen = boardModel.toFEN();
+        assertSame(fen, boardModel.toFEN());
+
+        boardModel.makeMove(12, 28, null);
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", boardModel.toFEN());
+        boardModel.unmakeMove();
+        assertEquals(fen, boardModel.toFEN());
+
+        boardModel.setMoveClocks(3, 7);
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 3 7", boardModel.toFEN());
+
+        StringBuilder builder = new StringBuilder();
+        boardModel.appendFEN(builder);
+        assertEquals(boardModel.toFEN(), builder.toString());
+    }
+
+    @Test
+    void testPackedPositionRoundTrip() {
+        String[] fens = {FENs.defaultPosition, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 4 17", "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "8/8/8/8/8/8/8/k1K5 b - - 99 120"};
+        ByteBuffer buffer = ByteBuffer.allocate(PackedPosition.BYTES * fens.length);
+        for (String fen : fens) {
+            PackedPosition position = PackedPosition.of(BoardModel.fromFEN(fen));
+            assertEquals(fen, position.toFEN());
+            assertEquals(fen, position.toBoardModel().toFEN());
+            position.writeTo(buffer);
+        }
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        for (String fen : fens) assertEquals(fen, PackedPosition.readFrom(buffer).toFEN());
+    }
+
     @Test
     void testParseFEN() {
         String validFEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
@@ -127,6 +167,124 @@ public class BoardModelTests {
         }
     }
 
+    @Test
+    void testBitboardsMatchPieces() {
+        boardModel = BoardModel.parseFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertNotNull(boardModel);
+
+        long occupied = 0;
+        for (Piece piece : boardModel.pieces) {
+            int square = piece.getRow() * 8 + piece.getCol();
+            assertSame(piece, boardModel.pieceAt(piece.getRow(), piece.getCol()));
+            assertNotEquals(0, boardModel.getBitboard(piece.getPlayer(), piece.getRank()) & 1L << square);
+            occupied |= 1L << square;
+        }
+        assertEquals(occupied, boardModel.getOccupied());
+        assertEquals(0, boardModel.getOccupancy(Player.WHITE) & boardModel.getOccupancy(Player.BLACK));
+    }
+
+    @Test
+    void testMovePieceUpdatesSquares() {
+        Piece knight = boardModel.pieceAt(0, 6);
+        boardModel.movePiece(knight, 2, 5);
+
+        assertNull(boardModel.pieceAt(0, 6));
+        assertSame(knight, boardModel.pieceAt(2, 5));
+        assertEquals(1L << 21 | 1L << 1, boardModel.getBitboard(Player.WHITE, Rank.KNIGHT));
+
+        Piece pawn = boardModel.pieceAt(1, 0);
+        boardModel.capturePiece(pawn);
+        assertNull(boardModel.pieceAt(1, 0));
+        assertEquals(0, boardModel.getOccupied() & 1L << 8);
+    }
+
+    @Test
+    void testMakeUnmakeRestoresPosition() {
+        String fen = "r3k2r/1P1pqpb1/bn2pnp1/2pPN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq c6 0 1";
+        boardModel = BoardModel.parseFEN(fen);
+        assertNotNull(boardModel);
+        long[] bitboards = bitboards(boardModel);
+
+        // En passant, short castle, long castle, promotion with capture, rook move losing castling rights
+        int[][] moves = {{35, 42}, {4, 6}, {4, 2}, {49, 56}, {0, 1}};
+        for (int[] move : moves) {
+            boardModel.makeMove(move[0], move[1], move[1] >= 56 ? Rank.QUEEN : null);
+            assertEquals(Player.BLACK, boardModel.getTurn());
+            boardModel.unmakeMove();
+            assertEquals(fen, boardModel.toFEN());
+            assertArrayEquals(bitboards, bitboards(boardModel));
+        }
+
+        boardModel.makeMove(35, 42, null);
+        assertEquals(Bitboards.EMPTY, boardModel.pieceIndexAt(34));
+        assertEquals(0, boardModel.getBitboard(Player.BLACK, Rank.PAWN) & 1L << 34);
+        boardModel.unmakeMove();
+
+        boardModel.makeMove(4, 6, null);
+        assertEquals(Rank.ROOK, Bitboards.rank(boardModel.pieceIndexAt(5)));
+        assertEquals(BoardModel.BLACK_SHORT_CASTLE | BoardModel.BLACK_LONG_CASTLE, boardModel.getCastlingRights());
+    }
+
+    @Test
+    void testZobristKeyIsIncremental() {
+        String fen = "r3k2r/1P1pqpb1/bn2pnp1/2pPN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq c6 0 1";
+        boardModel = BoardModel.parseFEN(fen);
+        assertNotNull(boardModel);
+        long key = boardModel.getZobristKey();
+
+        // En passant, short castle, promotion with capture, then a double push leaving an en passant square
+        int[][] moves = {{35, 42}, {60, 62}, {49, 56}, {52, 36}};
+        for (int[] move : moves) {
+            boardModel.playMove(move[0], move[1], move[0] < 56 && move[1] >= 56 ? Rank.QUEEN : null);
+            BoardModel parsedBoard = BoardModel.parseFEN(boardModel.toFEN());
+            assertNotNull(parsedBoard);
+            assertEquals(parsedBoard.getZobristKey(), boardModel.getZobristKey(), boardModel.toFEN());
+        }
+        for (int i = 0; i < moves.length; i++) boardModel.unmakeMove();
+        assertEquals(key, boardModel.getZobristKey());
+    }
+
+    @Test
+    void testAttackMapsAreIncremental() {
+        boardModel = BoardModel.parseFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertNotNull(boardModel);
+        long white = boardModel.getAttackMap(Player.WHITE), black = boardModel.getAttackMap(Player.BLACK);
+        MoveList moves = new MoveList();
+        int plies = 0;
+        for (; plies < 40 && MoveGenerator.generate(boardModel, moves) > 0; plies++) {
+            int move = moves.get(plies * 7 % moves.size());
+            boardModel.playMove(Move.from(move), Move.to(move), Move.promotion(move));
+            BoardModel parsedBoard = BoardModel.parseFEN(boardModel.toFEN());
+            assertNotNull(parsedBoard);
+            for (Player player : Player.values())
+                assertEquals(parsedBoard.getAttackMap(player), boardModel.getAttackMap(player), boardModel.toFEN());
+            assertEquals(parsedBoard.isKingAttacked(boardModel.getTurn()), boardModel.isKingAttacked(boardModel.getTurn()));
+        }
+        for (int i = 0; i < plies; i++) boardModel.unmakeMove();
+        assertEquals(white, boardModel.getAttackMap(Player.WHITE));
+        assertEquals(black, boardModel.getAttackMap(Player.BLACK));
+    }
+
+    @Test
+    void testRepetitionCount() {
+        // Knights shuffle back and forth, the starting position repeats after every 4 plies
+        int[][] moves = {{6, 21}, {62, 45}, {21, 6}, {45, 62}};
+        for (int i = 1; i <= 2; i++) {
+            for (int[] move : moves) boardModel.playMove(move[0], move[1], null);
+            assertEquals(i, boardModel.getRepetitionCount());
+        }
+
+        // A pawn move is irreversible, earlier positions are not compared
+        boardModel.playMove(12, 28, null);
+        boardModel.playMove(52, 36, null);
+        assertEquals(0, boardModel.getRepetitionCount());
+
+        BoardModel transposed = new BoardModel(true);
+        transposed.playMove(12, 28, null);
+        transposed.playMove(52, 36, null);
+        assertEquals(transposed.getZobristKey(), boardModel.getZobristKey());
+    }
+
     @Test
     void testToString() {
         boardModel.resetBoard();
@@ -134,4 +292,11 @@ public class BoardModelTests {
 
         assertEquals(expected, boardModel.toString().trim());
     }
+
+    private static long[] bitboards(BoardModel boardModel) {
+        long[] bitboards = new long[Bitboards.PIECE_TYPES];
+        for (int i = 0; i < Bitboards.PIECE_TYPES; i++)
+            bitboards[i] = boardModel.getBitboard(Bitboards.player(i), Bitboards.rank(i));
+        return bitboards;
+    }
 }
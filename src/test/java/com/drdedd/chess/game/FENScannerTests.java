@@ -0,0 +1,64 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.board.FENScanner;
+import com.drdedd.chess.game.board.InvalidFENException;
+import com.drdedd.chess.game.board.InvalidFENException.Reason;
+import com.drdedd.chess.game.gameData.Player;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FENScannerTests {
+
+    private static void assertInvalid(Reason reason, String FEN) {
+        InvalidFENException exception = assertThrows(InvalidFENException.class, () -> FENScanner.scan(FEN), FEN);
+        assertEquals(reason, exception.getReason(), FEN);
+    }
+
+    @Test
+    void testScanPosition() {
+        FENScanner scanner = FENScanner.scan("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq e3 4 17");
+        assertEquals(Player.BLACK, scanner.getTurn());
+        assertEquals(BoardModel.WHITE_SHORT_CASTLE | BoardModel.BLACK_LONG_CASTLE, scanner.getCastlingRights());
+        assertEquals(20, scanner.getEnPassant());
+        assertEquals(4, scanner.getHalfMove());
+        assertEquals(17, scanner.getFullMove());
+    }
+
+    @Test
+    void testOptionalClocks() {
+        String[] FENs = {"4k3/8/8/8/8/8/8/4K3 w - -", "4k3/8/8/8/8/8/8/4K3 w - - - -", "4k3/8/8/8/8/8/8/4K3 w - - 3", "  4k3/8/8/8/8/8/8/4K3  w  -  -  0  1 "};
+        for (String FEN : FENs) {
+            BoardModel boardModel = BoardModel.fromFEN(FEN);
+            assertEquals(1, boardModel.getFullMove(), FEN);
+        }
+        assertEquals(3, BoardModel.fromFEN(FENs[2]).getHalfMove());
+    }
+
+    @Test
+    void testStructuredErrors() {
+        assertInvalid(Reason.EMPTY, "   ");
+        assertInvalid(Reason.MISSING_FIELD, "4k3/8/8/8/8/8/8/4K3 w -");
+        assertInvalid(Reason.RANK_LENGTH, "4k3/8/8/8/8/8/8/4K4 w - - 0 1");
+        assertInvalid(Reason.RANK_LENGTH, "4k3/7/8/8/8/8/8/4K3 w - - 0 1");
+        assertInvalid(Reason.RANK_COUNT, "4k3/8/8/8/8/8/4K3 w - - 0 1");
+        assertInvalid(Reason.INVALID_PIECE, "4k3/8/8/8/8/8/8/4X3 w - - 0 1");
+        assertInvalid(Reason.KING_COUNT, "4k3/8/8/8/8/8/8/3KK3 w - - 0 1");
+        assertInvalid(Reason.KING_COUNT, "8/8/8/8/8/8/8/4K3 w - - 0 1");
+        assertInvalid(Reason.PAWN_ON_BACK_RANK, "4k2p/8/8/8/8/8/8/4K3 w - - 0 1");
+        assertInvalid(Reason.INVALID_TURN, "4k3/8/8/8/8/8/8/4K3 x - - 0 1");
+        assertInvalid(Reason.INVALID_CASTLING, "4k3/8/8/8/8/8/8/4K3 w QK - 0 1");
+        assertInvalid(Reason.INVALID_EN_PASSANT, "4k3/8/8/8/8/8/8/4K3 w - e6 0 1");
+        assertInvalid(Reason.INVALID_EN_PASSANT, "4k3/8/8/8/4P3/8/8/4K3 w - e3 0 1");
+        assertInvalid(Reason.INVALID_CLOCK, "4k3/8/8/8/8/8/8/4K3 w - - x 1");
+        assertInvalid(Reason.OPPONENT_IN_CHECK, "4k3/8/8/8/8/8/8/4R1K1 w - - 0 1");
+        assertInvalid(Reason.TRAILING_CHARACTERS, "4k3/8/8/8/8/8/8/4K3 w - - 0 1 extra");
+    }
+
+    @Test
+    void testErrorIndex() {
+        InvalidFENException exception = assertThrows(InvalidFENException.class, () -> FENScanner.scan("4k3/8/8/8/8/8/8/4X3 w - - 0 1"));
+        assertEquals(17, exception.getIndex());
+        assertNull(BoardModel.parseFEN("4k3/8/8/8/8/8/8/4X3 w - - 0 1"));
+    }
+}
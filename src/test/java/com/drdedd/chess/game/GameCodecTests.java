@@ -0,0 +1,66 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.pgn.GameCodec;
+import com.drdedd.chess.game.pgn.PGN;
+import com.drdedd.chess.game.pgn.PGNData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodecTests {
+    private static final List<String> SAN_MOVES = List.of("e4", "d5", "e5", "f5", "exf6", "Nc6", "fxg7", "Bf5", "gxh8=N", "Qd7", "Nf3", "O-O-O", "Be2", "e6", "O-O");
+    private static final List<String> UCI_MOVES = List.of("e2e4", "d7d5", "e4e5", "f7f5", "e5f6", "b8c6", "f6g7", "c8f5", "g7h8n", "d8d7", "g1f3", "e8c8", "f1e2", "e7e6", "e1g1");
+
+    private static PGNData game(String FEN, List<String> sanMoves, List<String> uciMoves) {
+        PGNData data = new PGNData();
+        if (FEN != null) data.addTag(PGN.TAG_FEN, FEN);
+        for (int i = 0; i < uciMoves.size(); i++) data.addMove(sanMoves.get(i), uciMoves.get(i));
+        return data;
+    }
+
+    @Test
+    void testRoundTrip() {
+        GameCodec codec = new GameCodec();
+        byte[] encoded = codec.encode(game(null, SAN_MOVES, UCI_MOVES));
+        assertEquals(1 + SAN_MOVES.size(), encoded.length, "One byte per ply after the ply count");
+        assertEquals(SAN_MOVES.size(), GameCodec.plies(encoded));
+
+        for (int i = 0; i < 2; i++) {
+            PGNData decoded = new PGNData();
+            codec.decode(encoded, decoded);
+            assertEquals(SAN_MOVES, decoded.getSanMoves());
+            assertEquals(UCI_MOVES, decoded.getUciMoves());
+        }
+        int[] moves = codec.decodeMoves(encoded, "");
+        assertEquals("e5f6", Move.toUCI(moves[4]));
+        assertTrue(Move.isCastle(moves[11]));
+    }
+
+    @Test
+    void testStartingPosition() {
+        String FEN = "4k3/8/8/8/8/8/4P3/4K3 b - - 0 1";
+        GameCodec codec = new GameCodec();
+        byte[] encoded = codec.encode(game(FEN, List.of("Kd8", "e4"), List.of("e8d8", "e2e4")));
+
+        PGNData decoded = new PGNData();
+        decoded.addTag(PGN.TAG_FEN, FEN);
+        codec.decode(encoded, decoded);
+        assertEquals(List.of("Kd8", "e4"), decoded.getSanMoves());
+        assertEquals(2, codec.decodeMoves(encoded, FEN).length);
+    }
+
+    @Test
+    void testInvalidGames() {
+        GameCodec codec = new GameCodec();
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(game(null, List.of("e4", "e4"), List.of("e2e4", "e2e4"))));
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeMoves(new byte[]{1, 20}, ""), "Index beyond the 20 legal moves");
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeMoves(new byte[]{2, 0}, ""), "Truncated moves");
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeMoves(new byte[]{(byte) 0x80}, ""), "Truncated ply count");
+
+        byte[] encoded = codec.encode(game(null, SAN_MOVES, UCI_MOVES));
+        assertEquals(UCI_MOVES.size(), codec.decodeMoves(encoded, "").length, "Failed games do not affect the next game");
+    }
+}
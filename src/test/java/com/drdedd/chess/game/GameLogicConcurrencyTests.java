@@ -0,0 +1,99 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.gameData.ChessState;
+import com.drdedd.chess.game.gameData.Rank;
+import com.drdedd.chess.game.pieces.Pawn;
+import com.drdedd.chess.game.pgn.PGN;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs many games at once to check that no game state is shared between <code>GameLogic</code> instances
+ */
+public class GameLogicConcurrencyTests {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String CHECKMATE_FEN = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+    private static final String STALEMATE_FEN = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+    private static final int GAMES = 200, MAX_PLIES = 300;
+
+    /**
+     * Plays a deterministic game, the move played at each ply is picked from the legal moves by the seed
+     *
+     * @return Final FEN, game state and result of the game
+     */
+    private static String playGame(int seed) {
+        GameLogic gameLogic = new GameLogic(null, START_FEN);
+        for (int ply = 0; ply < MAX_PLIES && !gameLogic.isGameTerminated(); ply++) {
+            MoveList legalMoves = gameLogic.getLegalMoves();
+            int move = legalMoves.get(Math.floorMod(seed * 31 + ply * 17, legalMoves.size()));
+            int from = Move.from(move), to = Move.to(move);
+            Rank promotion = Move.promotion(move);
+            if (promotion == null) assertTrue(gameLogic.move(from / 8, from % 8, to / 8, to % 8));
+            else {
+                Pawn pawn = (Pawn) gameLogic.pieceAt(from / 8, from % 8);
+                assertTrue(gameLogic.promote(pawn, to / 8, to % 8, from / 8, from % 8, promotion));
+            }
+        }
+        return String.join(" | ", gameLogic.getBoardModel().toFEN(), String.valueOf(gameLogic.getGameState()), gameLogic.getResult(), String.valueOf(gameLogic.isInCheck()));
+    }
+
+    private static void assertTerminalPositions() {
+        GameLogic checkmate = new GameLogic(null, CHECKMATE_FEN);
+        assertTrue(checkmate.isGameTerminated());
+        assertTrue(checkmate.isInCheck());
+        assertEquals(ChessState.CHECKMATE, checkmate.getGameState());
+        assertEquals(PGN.RESULT_BLACK_WON, checkmate.getResult());
+
+        GameLogic stalemate = new GameLogic(null, STALEMATE_FEN);
+        assertTrue(stalemate.isGameTerminated());
+        assertFalse(stalemate.isInCheck());
+        assertEquals(ChessState.STALEMATE, stalemate.getGameState());
+        assertEquals(PGN.RESULT_DRAW, stalemate.getResult());
+
+        GameLogic ongoing = new GameLogic(null, START_FEN);
+        assertFalse(ongoing.isGameTerminated());
+        assertEquals(ChessState.ONGOING, ongoing.getGameState());
+        assertEquals(20, ongoing.getLegalMoves().size());
+    }
+
+    @Test
+    void testTerminationIsPerGame() {
+        GameLogic checkmate = new GameLogic(null, CHECKMATE_FEN), ongoing = new GameLogic(null, START_FEN);
+        assertTrue(checkmate.isGameTerminated());
+        assertFalse(ongoing.isGameTerminated());
+        assertTrue(ongoing.move(1, 4, 3, 4));
+        assertEquals(ChessState.CHECKMATE, checkmate.getGameState());
+        assertEquals(ChessState.ONGOING, ongoing.getGameState());
+    }
+
+    @Test
+    void testConcurrentGamesMatchSequential() throws Exception {
+        String[] expected = new String[GAMES];
+        for (int i = 0; i < GAMES; i++) expected[i] = playGame(i);
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<String>> games = new ArrayList<>(GAMES);
+            List<Future<?>> checks = new ArrayList<>(GAMES);
+            for (int i = 0; i < GAMES; i++) {
+                int seed = i;
+                games.add(executor.submit((Callable<String>) () -> playGame(seed)));
+                checks.add(executor.submit(GameLogicConcurrencyTests::assertTerminalPositions));
+            }
+            for (int i = 0; i < GAMES; i++) {
+                assertEquals(expected[i], games.get(i).get(), "Game " + i);
+                checks.get(i).get();
+            }
+        }
+    }
+}
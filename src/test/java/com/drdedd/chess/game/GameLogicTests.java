@@ -1,4 +1,107 @@
 package com.drdedd.chess.game;
 
+import com.drdedd.chess.game.board.GameHistory;
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.PackedPosition;
+import com.drdedd.chess.game.gameData.ChessState;
+import com.drdedd.chess.game.gameData.UpdateMode;
+import com.drdedd.chess.game.pgn.PGN;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class GameLogicTests {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String[] FOOLS_MATE = {"f2f3", "e7e5", "g2g4", "d8h4"};
+
+    private static GameLogic play(UpdateMode updateMode, String... uciMoves) {
+        GameLogic gameLogic = new GameLogic(null, START_FEN);
+        gameLogic.setUpdateMode(updateMode);
+        for (String move : uciMoves)
+            assertTrue(gameLogic.move(move.charAt(1) - '1', move.charAt(0) - 'a', move.charAt(3) - '1', move.charAt(2) - 'a'), move);
+        return gameLogic;
+    }
+
+    @Test
+    void testUpdateModesReachSamePosition() {
+        GameLogic eager = play(UpdateMode.EAGER, FOOLS_MATE), lazy = play(UpdateMode.LAZY, FOOLS_MATE), replay = play(UpdateMode.REPLAY, FOOLS_MATE);
+        assertEquals(eager.getFENs(), lazy.getFENs());
+        assertEquals(eager.getFENs(), replay.getFENs());
+        assertEquals(FOOLS_MATE.length + 1, replay.getFENs().size());
+        for (int i = 0; i < replay.getHistory().size(); i++)
+            assertEquals(eager.getFENs().get(i), replay.getHistory().boardModelAt(i).toFEN());
+
+        assertEquals(ChessState.CHECKMATE, eager.getGameState());
+        assertEquals(ChessState.CHECKMATE, lazy.getGameState());
+        assertEquals(PGN.RESULT_BLACK_WON, lazy.getResult());
+        assertTrue(lazy.isInCheck());
+        assertTrue(lazy.getLegalMoves().isEmpty());
+    }
+
+    @Test
+    void testReplaySkipsTermination() {
+        GameLogic replay = play(UpdateMode.REPLAY, FOOLS_MATE);
+        assertTrue(replay.isInCheck());
+        assertFalse(replay.isGameTerminated());
+        assertEquals(ChessState.ONGOING, replay.getGameState());
+
+        replay.setUpdateMode(UpdateMode.EAGER);
+        assertTrue(replay.isGameTerminated());
+        assertEquals(ChessState.CHECKMATE, replay.getGameState());
+        assertEquals(PGN.RESULT_BLACK_WON, replay.getPGN().getResult());
+    }
+
+    @Test
+    void testLazyRejectsMovesAfterTermination() {
+        GameLogic lazy = play(UpdateMode.LAZY, FOOLS_MATE);
+        assertFalse(lazy.move(1, 0, 2, 0));
+        assertTrue(lazy.isGameTerminated());
+    }
+
+    @Test
+    void testLazyComputesOnFirstAccess() {
+        assertTrue(play(UpdateMode.EAGER, "e2e4").isPositionComputed());
+
+        GameLogic lazy = play(UpdateMode.LAZY, "e2e4");
+        assertFalse(lazy.isPositionComputed(), "Nothing is computed after a lazy move");
+        assertEquals(20, lazy.getLegalMoves().size());
+        assertFalse(lazy.isGameTerminated());
+        assertTrue(lazy.isPositionComputed());
+
+        assertTrue(lazy.move(6, 4, 4, 4));
+        assertFalse(lazy.isPositionComputed(), "The next move invalidates the position");
+        assertFalse(lazy.isGameTerminated());
+        assertTrue(lazy.isPositionComputed());
+    }
+
+    @Test
+    void testHistoryRematerialisesPositions() {
+        BoardModel boardModel = new BoardModel(true);
+        GameHistory history = new GameHistory(PackedPosition.of(boardModel));
+        List<String> fens = new ArrayList<>(List.of(boardModel.toFEN()));
+        MoveList legalMoves = new MoveList();
+        Random random = new Random(15);
+        for (int ply = 0; ply < 150; ply++) {
+            MoveGenerator.generate(boardModel, legalMoves);
+            if (legalMoves.isEmpty()) break;
+            int move = legalMoves.get(random.nextInt(legalMoves.size()));
+            boardModel.playMove(Move.from(move), Move.to(move), Move.promotion(move));
+            history.add(move, boardModel);
+            fens.add(boardModel.toFEN());
+        }
+
+        assertEquals(fens, history.FENs());
+        List<String> view = history.FENs();
+        for (int i = fens.size() - 1; i >= 0; i -= 7) assertEquals(fens.get(i), view.get(i));
+        for (int i = 0; i < fens.size(); i += 5) assertEquals(fens.get(i), history.boardModelAt(i).toFEN());
+
+        while (history.plies() > GameHistory.CHECKPOINT_INTERVAL - 1) history.removeLast();
+        assertEquals(fens.subList(0, GameHistory.CHECKPOINT_INTERVAL), history.FENs());
+    }
 }
@@ -0,0 +1,116 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.board.Attacks;
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveGeneratorTests {
+
+    private static void assertPerft(String fen, long... expected) {
+        BoardModel boardModel = BoardModel.parseFEN(fen);
+        assertNotNull(boardModel, fen);
+        for (int depth = 1; depth <= expected.length; depth++)
+            assertEquals(expected[depth - 1], Perft.perft(boardModel, depth), fen + " depth " + depth);
+        assertEquals(fen, boardModel.toFEN());
+    }
+
+    @Test
+    void testPerftStartingPosition() {
+        assertPerft("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 20, 400, 8902, 197281);
+    }
+
+    @Test
+    void testPerftKiwipete() {
+        assertPerft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48, 2039, 97862);
+    }
+
+    @Test
+    void testPerftEnPassantPins() {
+        assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238);
+    }
+
+    @Test
+    void testParallelDivideMatchesSequential() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        BoardModel boardModel = BoardModel.parseFEN(fen);
+        assertNotNull(boardModel);
+        LinkedHashMap<String, Long> sequential = Perft.divide(boardModel, 3), parallel = Perft.divide(boardModel, 3, 4);
+        assertEquals(sequential, parallel);
+        assertEquals(48, parallel.size());
+        assertEquals(97862, parallel.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(fen, boardModel.toFEN());
+    }
+
+    @Test
+    void testPerftPromotions() {
+        assertPerft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264, 9467);
+        assertPerft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379);
+    }
+
+    @Test
+    void testPerftMiddleGame() {
+        assertPerft("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46, 2079, 89890);
+    }
+
+    @Test
+    void testEnPassantDiscoveredCheck() {
+        // Capturing en passant would expose the king to the rook along the rank
+        BoardModel boardModel = BoardModel.parseFEN("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+        assertNotNull(boardModel);
+        assertFalse(uciMoves(boardModel).contains("e5d6"));
+
+        boardModel = BoardModel.parseFEN("8/8/8/K2pP3/8/8/8/7k w - d6 0 1");
+        assertNotNull(boardModel);
+        assertTrue(uciMoves(boardModel).contains("e5d6"));
+    }
+
+    @Test
+    void testCastlingThroughAttack() {
+        // f1 is attacked by the bishop, d1 is free
+        BoardModel boardModel = BoardModel.parseFEN("r3k2r/8/8/8/2b5/8/8/R3K2R w KQkq - 0 1");
+        assertNotNull(boardModel);
+        Set<String> moves = uciMoves(boardModel);
+        assertFalse(moves.contains("e1g1"));
+        assertTrue(moves.contains("e1c1"));
+    }
+
+    @Test
+    void testMagicAttacksMatchRayWalk() {
+        Random random = new Random(1);
+        int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}}, bishopDirections = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            int square = random.nextInt(64);
+            assertEquals(rayWalk(square, occupied, rookDirections), Attacks.rookAttacks(square, occupied));
+            assertEquals(rayWalk(square, occupied, bishopDirections), Attacks.bishopAttacks(square, occupied));
+        }
+    }
+
+    private static long rayWalk(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions)
+            for (int i = square / 8 + direction[0], j = square % 8 + direction[1]; i >= 0 && i < 8 && j >= 0 && j < 8; i += direction[0], j += direction[1]) {
+                attacks |= 1L << i * 8 + j;
+                if ((occupied & 1L << i * 8 + j) != 0) break;
+            }
+        return attacks;
+    }
+
+    private static Set<String> uciMoves(BoardModel boardModel) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(boardModel, moves);
+        Set<String> uciMoves = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) uciMoves.add(Move.toUCI(moves.get(i)));
+        return uciMoves;
+    }
+}
@@ -0,0 +1,109 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.board.Move;
+import com.drdedd.chess.game.board.MoveGenerator;
+import com.drdedd.chess.game.board.MoveList;
+import com.drdedd.chess.game.board.Notation;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotationTests {
+
+    private static int san(BoardModel boardModel, MoveList legalMoves, String san) {
+        int move = Notation.fromSAN(san, boardModel, legalMoves);
+        assertNotEquals(-1, move, san);
+        return move;
+    }
+
+    @Test
+    void testWriteSAN() {
+        BoardModel boardModel = BoardModel.parseFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertNotNull(boardModel);
+        MoveList legalMoves = new MoveList();
+        MoveGenerator.generate(boardModel, legalMoves);
+
+        assertEquals("O-O", Notation.toSAN(boardModel, legalMoves, san(boardModel, legalMoves, "O-O")));
+        assertEquals("O-O-O", Notation.toSAN(boardModel, legalMoves, san(boardModel, legalMoves, "0-0-0+")));
+        assertEquals("Nxf7", Notation.toSAN(boardModel, legalMoves, san(boardModel, legalMoves, "Nxf7")));
+        assertEquals("dxe6", Notation.toSAN(boardModel, legalMoves, san(boardModel, legalMoves, "dxe6")));
+        assertEquals("Rb1", Notation.toSAN(boardModel, legalMoves, san(boardModel, legalMoves, "Rab1")));
+        assertEquals("e1g1", Move.toUCI(san(boardModel, legalMoves, "O-O")));
+    }
+
+    @Test
+    void testDisambiguation() {
+        BoardModel boardModel = BoardModel.parseFEN("k7/8/8/8/1N3N2/8/1N3N2/K7 w - - 0 1");
+        assertNotNull(boardModel);
+        MoveList legalMoves = new MoveList();
+        MoveGenerator.generate(boardModel, legalMoves);
+
+        assertEquals("Nb4d3", Notation.toSAN(boardModel, legalMoves, Notation.fromUCI("b4d3", legalMoves)));
+        assertEquals("Nbd1", Notation.toSAN(boardModel, legalMoves, Notation.fromUCI("b2d1", legalMoves)));
+        assertEquals("N4h3", Notation.toSAN(boardModel, legalMoves, Notation.fromUCI("f4h3", legalMoves)));
+        assertEquals(-1, Notation.fromSAN("Nd3", boardModel, legalMoves));
+        assertEquals(-1, Notation.fromSAN("Nd4", boardModel, legalMoves));
+    }
+
+    @Test
+    void testResolveSANErrors() {
+        BoardModel boardModel = BoardModel.parseFEN("k7/8/8/8/1N3N2/8/1N3N2/K7 w - - 0 1");
+        assertNotNull(boardModel);
+        MoveList legalMoves = new MoveList();
+        MoveGenerator.generate(boardModel, legalMoves);
+
+        assertEquals(Notation.AMBIGUOUS, Notation.resolveSAN("Nd3", boardModel, legalMoves));
+        assertEquals(Notation.ILLEGAL, Notation.resolveSAN("Nd4", boardModel, legalMoves));
+        assertEquals(Notation.ILLEGAL, Notation.resolveSAN("O-O", boardModel, legalMoves));
+        assertEquals(Notation.MALFORMED, Notation.resolveSAN("Nz9", boardModel, legalMoves));
+        assertEquals(Notation.MALFORMED, Notation.resolveSAN("Kb1=Q", boardModel, legalMoves));
+        assertEquals("b1", Notation.square(Move.to(Notation.resolveSAN("Ka1b1", boardModel, legalMoves))));
+
+        boardModel = BoardModel.parseFEN("k7/8/8/8/8/8/P7/K7 w - - 0 1");
+        assertNotNull(boardModel);
+        MoveGenerator.generate(boardModel, legalMoves);
+        assertEquals("a2a3", Move.toUCI(Notation.resolveSAN("Pa3", boardModel, legalMoves)));
+    }
+
+    @Test
+    void testPromotion() {
+        BoardModel boardModel = BoardModel.parseFEN("1r5k/P7/8/8/8/8/8/K7 w - - 0 1");
+        assertNotNull(boardModel);
+        MoveList legalMoves = new MoveList();
+        MoveGenerator.generate(boardModel, legalMoves);
+
+        int move = san(boardModel, legalMoves, "axb8=N");
+        assertEquals("a7b8n", Move.toUCI(move));
+        assertEquals(move, Notation.fromUCI("a7b8n", legalMoves));
+        assertEquals(san(boardModel, legalMoves, "a8Q"), Notation.fromUCI("a7a8q", legalMoves));
+        assertEquals(-1, Notation.fromSAN("a8", boardModel, legalMoves));
+        assertEquals(-1, Notation.fromUCI("a7a8k", legalMoves));
+    }
+
+    @Test
+    void testRoundTripRandomGames() {
+        Random random = new Random(13);
+        MoveList legalMoves = new MoveList();
+        for (int game = 0; game < 50; game++) {
+            BoardModel boardModel = new BoardModel(true);
+            for (int ply = 0; ply < 200; ply++) {
+                MoveGenerator.generate(boardModel, legalMoves);
+                if (legalMoves.isEmpty()) break;
+                Set<String> sans = new HashSet<>();
+                for (int i = 0; i < legalMoves.size(); i++) {
+                    int move = legalMoves.get(i);
+                    String san = Notation.toSAN(boardModel, legalMoves, move);
+                    assertTrue(sans.add(san), san);
+                    assertEquals(move, Notation.fromSAN(san, boardModel, legalMoves), san);
+                    assertEquals(move, Notation.fromUCI(Move.toUCI(move), legalMoves));
+                }
+                int move = legalMoves.get(random.nextInt(legalMoves.size()));
+                boardModel.makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+            }
+        }
+    }
+}
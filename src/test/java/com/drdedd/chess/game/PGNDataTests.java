@@ -0,0 +1,96 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.gameData.ChessAnnotation;
+import com.drdedd.chess.game.pgn.PGNData;
+import com.drdedd.chess.game.pgn.TagDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNDataTests {
+
+    @Test
+    void testMoves() {
+        PGNData data = new PGNData();
+        data.addMove("e4", "e2e4");
+        data.addMove("d5", "d7d5");
+        data.addMove("exd5", "e4d5");
+        data.removeLastMove();
+        data.addMove("e5", "e4e5");
+        data.addMove("f5", "f7f5");
+        data.addMove("exf6", "e5f6");
+        data.addMove("g6", "g7g6");
+        data.addMove("fxg7", "f6g7");
+        data.addMove("Nf6", "g8f6");
+        data.addMove("gxh8=N", "g7h8n");
+
+        assertEquals(9, data.getPlyCount());
+        assertEquals(List.of("e4", "d5", "e5", "f5", "exf6", "g6", "fxg7", "Nf6", "gxh8=N"), data.getSanMoves());
+        assertEquals("e4e5", data.getUciMove(2));
+        assertEquals("g7h8n", data.getUciMoves().getLast());
+        assertThrows(IndexOutOfBoundsException.class, () -> data.getSanMove(9));
+        assertThrows(IllegalArgumentException.class, () -> data.addMove("e4", "e2e9"));
+    }
+
+    @Test
+    void testTags() {
+        PGNData data = new PGNData();
+        data.addTag("Event", "Casual");
+        data.addTag("White", "Alice");
+        data.getTagsMap().put("Event", "Rated");
+
+        assertEquals(List.of("Event", "White"), List.copyOf(data.getTagNames()));
+        assertEquals("Rated", data.getTag("Event", null));
+        assertEquals("?", data.getTag("Black", "?"));
+        assertTrue(data.getTagsMap().containsKey("White"));
+    }
+
+    @Test
+    void testSharedDictionary() {
+        TagDictionary dictionary = new TagDictionary();
+        PGNData first = new PGNData(dictionary), second = new PGNData(dictionary);
+        for (PGNData data : List.of(first, second)) {
+            data.addTag(new String("Event"), new String("Oslo Open"));
+            data.addTag(new String("Site"), new String("Oslo"));
+            data.addTag(new String("Opening"), new String("Sicilian Defense"));
+            data.addMove(new String("Nf3"), "g1f3");
+        }
+
+        assertSame(first.getTag("Event", null), second.getTag("Event", null));
+        assertSame(first.getTagNames().iterator().next(), second.getTagNames().iterator().next());
+        assertNotSame(first.getTag("Site", null), second.getTag("Site", null), "Free-form values are not shared");
+        assertNotSame(first.getSanMove(0), second.getSanMove(0), "SAN moves are not shared");
+        assertEquals(1, dictionary.size(), "Standard names are not added to the dictionary");
+    }
+
+    @Test
+    void testDictionaryIsBounded() {
+        TagDictionary dictionary = new TagDictionary();
+        for (int i = 0; i < TagDictionary.MAX_SIZE * 2; i++) dictionary.internValue("Event", "Event " + i);
+        assertEquals(TagDictionary.MAX_SIZE, dictionary.size());
+        String event = new String("Event " + TagDictionary.MAX_SIZE * 2);
+        assertSame(event, dictionary.internValue("Event", event), "A full dictionary returns new strings unchanged");
+        assertEquals("Event 1", dictionary.internValue("Event", "Event 1"));
+    }
+
+    @Test
+    void testPlyData() {
+        PGNData data = new PGNData();
+        data.addEval(4, "0.3");
+        data.addEval(0, "0.2");
+        data.addComment(2, "{Main line}");
+        data.addAnnotation(1, ChessAnnotation.BOOK);
+        data.addAnnotation(3, null);
+
+        assertEquals("0.2", data.getEval(0));
+        assertEquals("0.3", data.getEvalMap().get(4));
+        assertEquals(List.of(0, 4), List.copyOf(data.getEvalMap().keySet()));
+        assertEquals("{Main line}", data.getComment(2));
+        assertNull(data.getComment(3));
+        assertEquals(ChessAnnotation.BOOK, data.getAnnotation(1));
+        assertEquals(1, data.getAnnotationMap().size());
+        assertTrue(data.getAlternateMoveSequence().isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.pgn.PGNIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNIndexTests {
+    private static final String GAMES = """
+            [Event "First"]
+            [Date "2024.03.15"]
+            [WhiteElo "2810"]
+            [BlackElo "2795"]
+            [ECO "C50"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Qh5 Nc6 3. Bc4 {1-0 inside a comment
+            [not a tag]} 3... Nf6 4. Qxf7# 1-0
+
+            [Event "Second"]
+            [Date "2023.??.??"]
+
+            1. d4 d5 2. c4 e6 *
+            """;
+    private static final String UNTERMINATED = """
+
+            [Event "Third"]
+            [Result "0-1"]
+
+            1. f3 e5""", CONTINUATION = """
+             2. g4 Qh4# 0-1
+
+            [Event "Fourth"]
+
+            1. e4 c5 *
+            """;
+
+    @Test
+    void testRandomAccess(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("games.pgn");
+        Files.writeString(file, GAMES);
+        try (PGNIndex index = PGNIndex.open(file)) {
+            assertTrue(Files.exists(PGNIndex.indexPath(file)));
+            assertEquals(2, index.size());
+            assertTrue(index.game(0).startsWith("[Event \"First\"]"));
+            assertTrue(index.game(0).contains("Qxf7# 1-0"));
+            assertTrue(index.game(1).startsWith("[Event \"Second\"]"));
+            assertEquals(20240315, index.date(0));
+            assertEquals(20230000, index.date(1));
+            assertEquals(2810, index.whiteElo(0));
+            assertEquals(2795, index.blackElo(0));
+            assertEquals("C50", index.eco(0));
+            assertEquals("", index.eco(1));
+            assertEquals("1-0", index.result(0));
+            assertEquals("*", index.result(1));
+            assertEquals(8, index.parse(0).FENs().size());
+            assertEquals(List.of(index.game(1)), index.games(1, 2));
+            assertThrows(IndexOutOfBoundsException.class, () -> index.offset(2));
+        }
+    }
+
+    @Test
+    void testIncrementalUpdate(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("games.pgn");
+        Files.writeString(file, GAMES + UNTERMINATED);
+        assertEquals(3, PGNIndex.update(file));
+        assertEquals(1, PGNIndex.update(file), "The unterminated game is scanned again");
+
+        Files.writeString(file, CONTINUATION, StandardOpenOption.APPEND);
+        assertEquals(2, PGNIndex.update(file));
+        try (PGNIndex index = PGNIndex.open(file)) {
+            assertEquals(4, index.size());
+            assertTrue(index.game(2).contains("Qh4# 0-1"));
+            assertEquals("0-1", index.result(2));
+            assertTrue(index.game(3).startsWith("[Event \"Fourth\"]"));
+        }
+
+        Files.writeString(file, GAMES);
+        assertEquals(2, PGNIndex.update(file), "A shorter file is indexed from the start");
+    }
+}
@@ -0,0 +1,110 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.pgn.IngestReport;
+import com.drdedd.chess.game.pgn.IngestedGame;
+import com.drdedd.chess.game.pgn.PGNIngestor;
+import com.drdedd.chess.game.pgn.PGNReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNIngestorTests {
+    private static final String[] GAMES = {
+            "[Event \"Scholar\"]\n\n1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0\n",
+            "[Event \"Fool\"]\n\n1. f3 e5 2. g4 Qh4# 0-1\n",
+            "[Event \"Illegal\"]\n\n1. e4 e5 2. Ke3 Nc6 *\n",
+            "[Event \"Queen's Gambit\"]\n\n1. d4 d5 2. c4 e6 3. Nc3 Nf6 4. Bg5 Be7 *\n"
+    };
+    private static final int COPIES = 50;
+
+    private static byte[] pgn() {
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < COPIES; i++) for (String game : GAMES) pgn.append(game).append('\n');
+        return pgn.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static PGNReader reader() {
+        return new PGNReader(new ByteArrayInputStream(pgn()));
+    }
+
+    private static void checkGame(IngestedGame game) {
+        int n = (int) (game.index() % GAMES.length);
+        if (n == 2) {
+            assertFalse(game.isValid());
+            assertNotNull(game.error());
+            assertEquals(GAMES[2], game.pgnContent());
+        } else {
+            assertTrue(game.isValid(), game.error());
+            assertEquals(GAMES[n].substring(8, GAMES[n].indexOf('"', 8)), game.parsedGame().pgn().getPGNData().getTagsMap().get("Event"));
+        }
+    }
+
+    @Test
+    void testOrderedIngestion() throws InterruptedException {
+        List<IngestedGame> games = new ArrayList<>();
+        try (PGNIngestor ingestor = PGNIngestor.withWorkers(4, true)) {
+            assertEquals(GAMES.length * COPIES, ingestor.ingest(reader(), games::add));
+            assertEquals(COPIES, ingestor.getGamesFailed());
+            assertEquals((GAMES.length - 1) * COPIES, ingestor.getGamesParsed());
+        }
+        for (int i = 0; i < games.size(); i++) {
+            assertEquals(i, games.get(i).index());
+            checkGame(games.get(i));
+        }
+    }
+
+    @Test
+    void testUnorderedIngestion() throws InterruptedException {
+        boolean[] seen = new boolean[GAMES.length * COPIES];
+        try (PGNIngestor ingestor = PGNIngestor.withVirtualThreads(8, false)) {
+            ingestor.ingest(reader(), game -> {
+                assertFalse(seen[(int) game.index()]);
+                seen[(int) game.index()] = true;
+                checkGame(game);
+            });
+            assertEquals(COPIES, ingestor.getGamesFailed());
+        }
+        for (boolean game : seen) assertTrue(game);
+    }
+
+    @Test
+    void testGzipIngestion(@TempDir Path directory) throws IOException, InterruptedException {
+        Path file = directory.resolve("games.pgn.gz");
+        try (GZIPOutputStream gzip = new GZIPOutputStream(Files.newOutputStream(file))) {
+            gzip.write(pgn());
+        }
+        List<IngestedGame> games = new ArrayList<>();
+        try (PGNIngestor ingestor = PGNIngestor.withWorkers(2, true)) {
+            assertEquals(GAMES.length * COPIES, ingestor.ingest(file, games::add));
+            IngestReport report = ingestor.getReport();
+            assertEquals(GAMES.length * COPIES, report.games());
+            assertEquals(COPIES, report.failed());
+            assertEquals(Files.size(file), report.inputBytes());
+            assertEquals(pgn().length, report.characters());
+            assertTrue(report.decompressNanos() > 0 && report.parseNanos() > 0);
+        }
+        for (int i = 0; i < games.size(); i++) {
+            assertEquals(i, games.get(i).index());
+            checkGame(games.get(i));
+        }
+
+        byte[] compressed = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(compressed, compressed.length / 2));
+        try (PGNIngestor ingestor = PGNIngestor.withWorkers(2, true)) {
+            assertThrows(UncheckedIOException.class, () -> ingestor.ingest(file, game -> {
+            }), "A truncated file fails the run");
+        }
+    }
+}
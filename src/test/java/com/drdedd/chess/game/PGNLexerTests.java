@@ -0,0 +1,96 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.pgn.PGNLexer;
+import com.drdedd.chess.game.pgn.PGNLexer.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNLexerTests {
+
+    private static List<TokenType> types(String pgn) {
+        PGNLexer lexer = new PGNLexer(pgn);
+        List<TokenType> types = new ArrayList<>();
+        TokenType type;
+        while ((type = lexer.next()) != TokenType.END) types.add(type);
+        return types;
+    }
+
+    @Test
+    public void testTokenTypes() {
+        String pgn = "[Event \"Test\"]\n1. e4 {Best by test} e5 (1... c5 $1) 2.Nf3 ; line comment\n2... Nc6 $14 1/2-1/2";
+        assertEquals(List.of(TokenType.TAG, TokenType.MOVE_NUMBER, TokenType.SAN, TokenType.COMMENT, TokenType.SAN,
+                TokenType.VARIATION_START, TokenType.MOVE_NUMBER, TokenType.SAN, TokenType.NAG, TokenType.VARIATION_END,
+                TokenType.MOVE_NUMBER, TokenType.SAN, TokenType.COMMENT, TokenType.MOVE_NUMBER, TokenType.SAN, TokenType.NAG,
+                TokenType.RESULT), types(pgn));
+
+        PGNLexer lexer = new PGNLexer(pgn.getBytes(StandardCharsets.US_ASCII), 0, pgn.length());
+        for (int i = 0; i < 4; i++) lexer.next();
+        assertEquals("Best by test", lexer.commentText());
+
+        byte[] bytes = ("xx" + pgn + "yy").getBytes(StandardCharsets.US_ASCII);
+        lexer = new PGNLexer(bytes, 2, pgn.length());
+        assertEquals(TokenType.TAG, lexer.next());
+        assertEquals("Test", lexer.tagValue());
+        String last = null;
+        while (lexer.next() != TokenType.END) last = lexer.text();
+        assertEquals("1/2-1/2", last, "The range ends before the trailing bytes");
+    }
+
+    @Test
+    public void testTags() {
+        PGNLexer lexer = new PGNLexer("[Event \"Say \\\"hi\\\" \\\\ bye\"] [White\"A, B\"] [Bad tag] [NoValue]");
+        assertEquals(TokenType.TAG, lexer.next());
+        assertEquals("Event", lexer.tagName());
+        assertEquals("Say \"hi\" \\ bye", lexer.tagValue());
+        assertEquals(TokenType.TAG, lexer.next());
+        assertEquals("White", lexer.tagName());
+        assertEquals("A, B", lexer.tagValue());
+        assertEquals(TokenType.INVALID, lexer.next());
+        assertEquals("[Bad tag]", lexer.text());
+        assertEquals(TokenType.INVALID, lexer.next());
+        assertEquals(TokenType.END, lexer.next());
+    }
+
+    @Test
+    public void testSAN() {
+        for (String san : new String[]{"e4", "exd5", "Nf3", "Nbd2", "R1e1", "Qh4xe1", "e8=Q", "exd8Q", "O-O", "O-O-O", "Qxf7#", "Bb5+"}) {
+            PGNLexer lexer = new PGNLexer(san);
+            assertEquals(TokenType.SAN, lexer.next(), san);
+            assertEquals(san, lexer.move());
+            assertEquals("", lexer.annotation());
+        }
+
+        PGNLexer lexer = new PGNLexer("Nxe5+?! e4!!");
+        assertEquals(TokenType.SAN, lexer.next());
+        assertEquals("Nxe5+", lexer.move());
+        assertEquals("?!", lexer.annotation());
+        assertEquals(TokenType.SAN, lexer.next());
+        assertEquals("!!", lexer.annotation());
+
+        for (String invalid : new String[]{"e9", "i4", "Ze4", "e8=", "Nf3x", "e4!!!", "hello", "O-O-O-O"})
+            assertEquals(TokenType.INVALID, new PGNLexer(invalid).next(), invalid);
+    }
+
+    @Test
+    public void testNumbersAndResults() {
+        PGNLexer lexer = new PGNLexer("12. 12... 1-0 0-1 * 1-0x 1/2 $123 $x");
+        assertEquals(TokenType.MOVE_NUMBER, lexer.next());
+        assertEquals(12, lexer.number());
+        assertEquals(TokenType.MOVE_NUMBER, lexer.next());
+        assertEquals("12...", lexer.text());
+        assertEquals(TokenType.RESULT, lexer.next());
+        assertEquals(TokenType.RESULT, lexer.next());
+        assertEquals(TokenType.RESULT, lexer.next());
+        assertEquals(TokenType.INVALID, lexer.next());
+        assertEquals(TokenType.INVALID, lexer.next());
+        assertEquals(TokenType.NAG, lexer.next());
+        assertEquals(123, lexer.number());
+        assertEquals(TokenType.INVALID, lexer.next());
+        assertEquals(TokenType.END, lexer.next());
+    }
+}
@@ -0,0 +1,133 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.pgn.PGNData;
+import com.drdedd.chess.game.pgn.PGNReader;
+import com.drdedd.chess.game.pgn.TagFilters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNReaderTests {
+    private static final String GAMES = """
+            [Event "First"]
+            [White "A"]
+            [Black "B"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Qh5 Nc6 3. Bc4 {1-0 inside a comment
+            [not a tag]} 3... Nf6 (3... g6 4. Qf3 1-0) 4. Qxf7# 1-0
+
+            [Event "Second"]
+            [Result "*"]
+
+            1. d4 d5 2. c4 ; 0-1 in a line comment
+            2... e6
+
+            [Event "Third"]
+            [Result "0-1"]
+
+            1. f3 e5 2. g4 Qh4# 0-1
+            """;
+
+    private static PGNReader reader() {
+        return new PGNReader(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testSplitsGames() {
+        try (PGNReader reader = reader()) {
+            assertTrue(reader.nextGame().contains("Qxf7# 1-0"));
+            String second = reader.nextGame();
+            assertTrue(second.startsWith("[Event \"Second\"]"));
+            assertFalse(second.contains("Third"));
+            assertTrue(reader.nextGame().contains("Qh4# 0-1"));
+            assertNull(reader.nextGame());
+            assertEquals(3, reader.getGamesRead());
+        }
+    }
+
+    @Test
+    void testStreamsParsedGames() {
+        List<ParsedGame> games;
+        try (Stream<ParsedGame> stream = reader().stream()) {
+            games = stream.toList();
+        }
+        assertEquals(3, games.size());
+        assertEquals(8, games.get(0).FENs().size());
+        assertEquals(4, games.get(1).pgn().getMoves().size());
+        assertEquals("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3", games.get(2).FENs().getLast());
+    }
+
+    @Test
+    void testReadsPathAndChannel(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("games.pgn");
+        Files.writeString(file, GAMES);
+        try (Stream<ParsedGame> games = PGNReader.games(file)) {
+            assertEquals(3, games.count());
+        }
+        try (PGNReader reader = new PGNReader(Channels.newChannel(Files.newInputStream(file)))) {
+            int count = 0;
+            while (reader.hasNext()) {
+                assertNotNull(reader.next());
+                count++;
+            }
+            assertEquals(3, count);
+            assertEquals(0, reader.getSkippedGames());
+        }
+    }
+
+    @Test
+    void testReadsGzip(@TempDir Path directory) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(GAMES.getBytes(StandardCharsets.UTF_8));
+        }
+        try (PGNReader reader = new PGNReader(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(3, reader.stream().count());
+            assertEquals(GAMES.length(), reader.getCharactersRead());
+        }
+
+        Path file = directory.resolve("games.pgn.gz");
+        Files.write(file, compressed.toByteArray());
+        try (Stream<ParsedGame> games = PGNReader.games(file)) {
+            assertEquals(3, games.count());
+        }
+    }
+
+    @Test
+    void testFiltersOnTags() {
+        try (PGNReader reader = reader()) {
+            reader.setFilter(data -> !data.getTag("Event", "").equals("First"));
+            assertTrue(reader.nextGame().startsWith("[Event \"Second\"]"));
+            assertTrue(reader.nextGame().contains("Qh4# 0-1"));
+            assertNull(reader.nextGame());
+            assertEquals(2, reader.getGamesRead());
+            assertEquals(1, reader.getFilteredGames());
+            assertEquals(0, reader.getDictionary().size(), "Headers read for the filter are not added to the dictionary");
+        }
+
+        PGNData data = new PGNData();
+        data.addTag("White", "Carlsen, Magnus");
+        data.addTag("WhiteElo", "2830");
+        data.addTag("BlackElo", "2790");
+        data.addTag("ECO", "B90");
+        data.addTag("Date", "2024.??.??");
+        assertTrue(TagFilters.ecoBetween("B20", "B99").and(TagFilters.minElo(2700)).and(TagFilters.player("carlsen, magnus")).test(data));
+        assertFalse(TagFilters.minElo(2800).test(data));
+        assertTrue(TagFilters.dateBetween("2024.03.01", "2024.06.30").test(data));
+        assertFalse(TagFilters.dateBetween("2023.01.01", "2023.12.31").test(data));
+        assertFalse(TagFilters.ecoBetween("C00", "C99").test(data));
+    }
+}
@@ -6,7 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -31,8 +31,8 @@ public class PGNTests {
         pgn.addMove(sanMove, uciMove);
 
         // Assert
-        LinkedList<String> sanMoves = pgn.getMoves();
-        LinkedList<String> uciMoves = pgn.getUCIMoves();
+        List<String> sanMoves = pgn.getMoves();
+        List<String> uciMoves = pgn.getUCIMoves();
 
         assertEquals(1, sanMoves.size());
         assertEquals("e4", sanMoves.getFirst());
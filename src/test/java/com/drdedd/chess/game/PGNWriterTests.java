@@ -0,0 +1,91 @@
+package com.drdedd.chess.game;
+
+import com.drdedd.chess.game.pgn.PGN;
+import com.drdedd.chess.game.pgn.PGNReader;
+import com.drdedd.chess.game.pgn.PGNWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PGNWriterTests {
+    private static final String GAMES = """
+            [Event "First"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Qh5 Nc6 3. Bc4 { [%eval 0.4] } 3... Nf6?? (3... g6 4. Qf3) 4. Qxf7# 1-0
+
+            [Event "Second"]
+            [Result "*"]
+
+            1. d4 d5 $2 2. c4 *
+            """;
+
+    private static List<PGN> read(PGNReader reader) throws IOException {
+        List<PGN> games = new ArrayList<>();
+        try (reader) {
+            reader.forEachRemaining(parsedGame -> games.add(parsedGame.pgn()));
+        }
+        return games;
+    }
+
+    @Test
+    void testWriteGame() throws IOException {
+        PGN pgn = read(new PGNReader(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8)))).getFirst();
+        StringWriter text = new StringWriter();
+        try (PGNWriter writer = new PGNWriter(text)) {
+            writer.write(pgn);
+            assertEquals(1, writer.getGamesWritten());
+        }
+
+        String game = text.toString();
+        assertTrue(game.startsWith(pgn.getTags() + "\n"));
+        assertTrue(game.contains("3. Bc4 { [%eval 0.4] } Nf6?? (3... g6 4. Qf3) 4. Qxf7 1-0\n\n"), game);
+        assertEquals(pgn.getTags() + pgn.getPGNCommented(), pgn.toString());
+    }
+
+    @Test
+    void testEscapedTags() throws IOException {
+        String event = "Club \"Open\" C:\\2024";
+        PGN pgn = read(new PGNReader(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8)))).getFirst();
+        pgn.addTag("Event", event);
+        StringWriter text = new StringWriter();
+        try (PGNWriter writer = new PGNWriter(text)) {
+            writer.write(pgn);
+        }
+
+        assertTrue(text.toString().startsWith("[Event \"Club \\\"Open\\\" C:\\\\2024\"]\n"), text.toString());
+        PGN written = read(new PGNReader(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)))).getFirst();
+        assertEquals(event, written.getPGNData().getTag("Event", null));
+        assertEquals(pgn.getMoves(), written.getMoves());
+    }
+
+    @Test
+    void testGzipRoundTrip(@TempDir Path directory) throws IOException {
+        List<PGN> games = read(new PGNReader(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8))));
+        Path file = directory.resolve("games.pgn.gz");
+        int copies = 500;
+        try (PGNWriter writer = PGNWriter.gzip(file)) {
+            for (int i = 0; i < copies; i++) for (PGN pgn : games) writer.write(pgn);
+        }
+
+        List<PGN> written = read(new PGNReader(new GZIPInputStream(Files.newInputStream(file))));
+        assertEquals(copies * games.size(), written.size());
+        for (int i = 0; i < written.size(); i++) {
+            PGN expected = games.get(i % games.size()), actual = written.get(i);
+            assertEquals(expected.getMoves(), actual.getMoves());
+            assertEquals(expected.getResult(), actual.getResult());
+            assertEquals(expected.getPGNCommented(), actual.getPGNCommented());
+        }
+    }
+}